@@ -8,7 +8,7 @@ import org.springframework.boot.autoconfigure.SpringBootApplication;
 import org.springframework.boot.autoconfigure.security.servlet.SecurityAutoConfiguration;
 import org.springframework.boot.autoconfigure.security.servlet.UserDetailsServiceAutoConfiguration;
 import org.springframework.context.annotation.Bean;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 
 @SpringBootApplication(
   scanBasePackages = "com.projectgo.barber_booking",
@@ -27,7 +27,7 @@ public class BarberbookingApplication {
     @Bean
     public CommandLineRunner initAdmin(
         UserRepository userRepository,
-        BCryptPasswordEncoder encoder
+        PasswordEncoder encoder
     ) {
         return args -> {
             User admin = userRepository
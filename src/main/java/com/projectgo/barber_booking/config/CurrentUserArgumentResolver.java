@@ -0,0 +1,59 @@
+package com.projectgo.barber_booking.config;
+
+import com.projectgo.barber_booking.controller.CurrentUser;
+import com.projectgo.barber_booking.model.User;
+import com.projectgo.barber_booking.service.UserCache;
+import org.springframework.core.MethodParameter;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.bind.support.WebDataBinderFactory;
+import org.springframework.web.context.request.NativeWebRequest;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.method.support.ModelAndViewContainer;
+
+import java.util.Optional;
+
+/**
+ * เติมค่าให้พารามิเตอร์ @CurrentUser User
+ * ผลลัพธ์ (รวมถึง "ไม่พบ") เก็บเป็น request attribute → เรียกซ้ำใน request เดียวกันไม่ต้องถาม UserCache อีก
+ */
+@Component
+public class CurrentUserArgumentResolver implements HandlerMethodArgumentResolver {
+
+    private static final String ATTR = CurrentUserArgumentResolver.class.getName() + ".USER";
+
+    private final UserCache userCache;
+
+    public CurrentUserArgumentResolver(UserCache userCache) {
+        this.userCache = userCache;
+    }
+
+    @Override
+    public boolean supportsParameter(MethodParameter parameter) {
+        return parameter.hasParameterAnnotation(CurrentUser.class)
+                && User.class.isAssignableFrom(parameter.getParameterType());
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer mavContainer,
+                                  NativeWebRequest request, WebDataBinderFactory binderFactory) {
+        Object memo = request.getAttribute(ATTR, RequestAttributes.SCOPE_REQUEST);
+        if (memo == null) {
+            memo = lookup();
+            request.setAttribute(ATTR, memo, RequestAttributes.SCOPE_REQUEST);
+        }
+        return ((Optional<User>) memo).orElse(null);
+    }
+
+    private Optional<User> lookup() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        if (auth == null || !auth.isAuthenticated() || auth instanceof AnonymousAuthenticationToken) {
+            return Optional.empty();
+        }
+        return userCache.find(auth.getName());
+    }
+}
@@ -0,0 +1,30 @@
+package com.projectgo.barber_booking.config;
+
+import com.projectgo.barber_booking.service.DbBulkhead;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+
+/** ครอบ DataSource ด้วย DbBulkhead (ปิดได้ด้วย db.bulkhead.enabled=false) */
+@Configuration
+public class DbBulkheadConfig {
+
+  @Bean
+  public static BeanPostProcessor dbBulkheadPostProcessor(ObjectProvider<DbBulkhead> bulkhead,
+                                                          Environment env) {
+    boolean enabled = env.getProperty("db.bulkhead.enabled", Boolean.class, true);
+    return new BeanPostProcessor() {
+      @Override
+      public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (enabled && bean instanceof DataSource ds) {
+          return bulkhead.getObject().wrap(ds);
+        }
+        return bean;
+      }
+    };
+  }
+}
@@ -0,0 +1,10 @@
+package com.projectgo.barber_booking.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/** เปิดใช้ @Scheduled สำหรับงานเบื้องหลัง (เช่น เก็บกวาด slot hold ที่หมดอายุ) */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
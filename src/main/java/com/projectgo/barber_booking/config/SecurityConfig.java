@@ -1,19 +1,31 @@
 package com.projectgo.barber_booking.config;
 
+import com.projectgo.barber_booking.exception.LoginThrottledException;
 import com.projectgo.barber_booking.service.CustomUserDetailsService;
+import com.projectgo.barber_booking.service.LoginAttemptGuard;
+import com.projectgo.barber_booking.service.PasswordHashExecutor;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
+import org.springframework.security.config.annotation.web.configurers.AbstractHttpConfigurer;
 import org.springframework.security.core.Authentication;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.AuthenticationException;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.security.web.SecurityFilterChain;
+import org.springframework.security.web.authentication.AuthenticationFailureHandler;
 import org.springframework.security.web.authentication.AuthenticationSuccessHandler;
 import org.springframework.security.web.authentication.SavedRequestAwareAuthenticationSuccessHandler;
+import org.springframework.security.web.authentication.SimpleUrlAuthenticationFailureHandler;
+import org.springframework.security.web.authentication.WebAuthenticationDetails;
 import org.springframework.security.web.util.matcher.AntPathRequestMatcher;
 
 import java.io.IOException;
@@ -23,24 +35,66 @@ import java.io.IOException;
 public class SecurityConfig {
 
     private final CustomUserDetailsService uds;
+    private final PasswordHashExecutor passwordHasher;
+    private final LoginAttemptGuard loginGuard;
 
-    public SecurityConfig(CustomUserDetailsService uds) {
+    public SecurityConfig(CustomUserDetailsService uds,
+                          PasswordHashExecutor passwordHasher,
+                          LoginAttemptGuard loginGuard) {
         this.uds = uds;
+        this.passwordHasher = passwordHasher;
+        this.loginGuard = loginGuard;
     }
 
+    /** สมัครสมาชิก / เปลี่ยนรหัส / initAdmin — ไม่ผ่านคิวของการล็อกอิน จึงไม่โดนปฏิเสธเป็น 429 */
     @Bean
-    public BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    public PasswordEncoder passwordEncoder() {
+        return passwordHasher.encoder();
     }
 
+    /**
+     * ตรวจ LoginAttemptGuard ก่อนค้นผู้ใช้และ hash รหัสผ่าน (hash รันบน pool ของ PasswordHashExecutor)
+     */
     @Bean
     public DaoAuthenticationProvider authenticationProvider() {
-        DaoAuthenticationProvider prov = new DaoAuthenticationProvider();
-        prov.setUserDetailsService(uds);
-        prov.setPasswordEncoder(passwordEncoder());
+        DaoAuthenticationProvider prov = new DaoAuthenticationProvider(uds) {
+            @Override
+            public Authentication authenticate(Authentication authentication) throws AuthenticationException {
+                loginGuard.check(authentication.getName(), remoteAddress(authentication));
+                return super.authenticate(authentication);
+            }
+        };
+        prov.setPasswordEncoder(passwordHasher.loginEncoder());
         return prov;
     }
 
+    private static String remoteAddress(Authentication auth) {
+        return (auth.getDetails() instanceof WebAuthenticationDetails d) ? d.getRemoteAddress() : null;
+    }
+
+    /**
+     * ล็อกอินไม่ผ่าน: ถูกจำกัด (คิว hash เต็ม / ผิดบ่อยเกิน) → 429 + Retry-After
+     * รหัสผิด → นับใน LoginAttemptGuard แล้วกลับไป /login?error เหมือนเดิม
+     */
+    @Bean
+    public AuthenticationFailureHandler authenticationFailureHandler() {
+        return new SimpleUrlAuthenticationFailureHandler("/login?error") {
+            @Override
+            public void onAuthenticationFailure(HttpServletRequest req, HttpServletResponse res, AuthenticationException ex)
+                    throws IOException, ServletException {
+                if (ex instanceof LoginThrottledException t) {
+                    res.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(t.getRetryAfterSeconds()));
+                    res.sendError(HttpStatus.TOO_MANY_REQUESTS.value(), t.getMessage());
+                    return;
+                }
+                if (ex instanceof BadCredentialsException) {
+                    loginGuard.failed(req.getParameter("username"), req.getRemoteAddr());
+                }
+                super.onAuthenticationFailure(req, res, ex);
+            }
+        };
+    }
+
     /** เด้งไป /admin ถ้า ROLE_ADMIN ไม่งั้น /home */
     @Bean
     public AuthenticationSuccessHandler authenticationSuccessHandler() {
@@ -48,6 +102,7 @@ public class SecurityConfig {
             @Override
             public void onAuthenticationSuccess(HttpServletRequest req, HttpServletResponse res, Authentication auth)
                     throws IOException, ServletException {
+                loginGuard.succeeded(auth.getName(), req.getRemoteAddr());
                 boolean isAdmin = auth.getAuthorities().stream()
                         .anyMatch(a -> "ROLE_ADMIN".equals(a.getAuthority()));
                 String target = isAdmin ? "/admin" : "/home";
@@ -56,7 +111,27 @@ public class SecurityConfig {
         };
     }
 
+    /**
+     * ทางลัดสำหรับไฟล์ static: chain แยกที่ไม่มี session / security context / CSRF / request cache
+     * ไม่ต้องโหลด session หรือผ่าน filter ของการล็อกอิน แต่ยังได้ security headers ตามปกติ
+     */
+    @Bean
+    @Order(0)
+    public SecurityFilterChain staticResourcesFilterChain(HttpSecurity http) throws Exception {
+        http
+            .securityMatcher("/css/**", "/js/**", "/images/**", "/webjars/**",
+                             "/fonts/**", "/uploads/**", "/avatars/**", "/favicon.ico")
+            .authorizeHttpRequests(auth -> auth.anyRequest().permitAll())
+            .csrf(AbstractHttpConfigurer::disable)
+            .requestCache(AbstractHttpConfigurer::disable)
+            .securityContext(AbstractHttpConfigurer::disable)
+            .sessionManagement(AbstractHttpConfigurer::disable)
+            .anonymous(AbstractHttpConfigurer::disable);
+        return http.build();
+    }
+
     @Bean
+    @Order(1)
     public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
         http
             // ✅ ยกเว้น CSRF เฉพาะ endpoint ที่เราต้องโพสต์ JSON จากหน้าเว็บ
@@ -69,7 +144,7 @@ public class SecurityConfig {
                 // ✅ สแตติกไฟล์
                 .requestMatchers(
                         "/css/**", "/js/**", "/images/**", "/webjars/**",
-                        "/fonts/**", "/uploads/**", "/favicon.ico"
+                        "/fonts/**", "/uploads/**", "/avatars/**", "/favicon.ico"
                 ).permitAll()
 
                 // ✅ หน้า public
@@ -80,7 +155,8 @@ public class SecurityConfig {
                 // ✅ อ่านเรตติ้ง/รีวิวบริการ (public)
                 .requestMatchers(
                         new AntPathRequestMatcher("/api/services/*/rating",  "GET"),
-                        new AntPathRequestMatcher("/api/services/*/reviews", "GET")
+                        new AntPathRequestMatcher("/api/services/*/reviews", "GET"),
+                        new AntPathRequestMatcher("/api/barbers/leaderboard", "GET")
                 ).permitAll()
 
                 // ✅ ลูกค้าสร้างการจองได้ (public)
@@ -104,7 +180,7 @@ public class SecurityConfig {
                 .usernameParameter("username")
                 .passwordParameter("password")
                 .successHandler(authenticationSuccessHandler())
-                .failureUrl("/login?error")
+                .failureHandler(authenticationFailureHandler())
                 .permitAll()
             )
 
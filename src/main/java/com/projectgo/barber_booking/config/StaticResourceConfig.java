@@ -1,23 +1,65 @@
 package com.projectgo.barber_booking.config;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.CacheControl;
+import org.springframework.web.servlet.config.annotation.ResourceChainRegistration;
+import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistration;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.springframework.web.servlet.resource.CssLinkResourceTransformer;
+import org.springframework.web.servlet.resource.EncodedResourceResolver;
+import org.springframework.web.servlet.resource.ResourceUrlEncodingFilter;
+import org.springframework.web.servlet.resource.VersionResourceResolver;
 
+import java.time.Duration;
+
+/**
+ * ไฟล์ static:
+ * - URL มี content hash (เช่น /css/main-3f2a….css) → cache ได้ 1 ปีแบบ immutable
+ *   เทมเพลตที่ใช้ @{/css/...} จะได้ URL แบบมี hash อัตโนมัติ (ResourceUrlEncodingFilter)
+ * - ถ้ามีไฟล์ .gz ข้าง ๆ (สร้างตอน build) และ browser รับ gzip ได้ จะส่งตัวบีบอัดแทน
+ * - ไฟล์ที่ผู้ใช้อัปโหลด (/avatars/**, /uploads/**) เสิร์ฟโดย MediaController ไม่ได้ผ่าน resource handler
+ */
 @Configuration
 public class StaticResourceConfig implements WebMvcConfigurer {
+
+  /** ปิดได้ตอน dev ถ้าต้องการแก้ css แล้วเห็นผลทันที */
+  @Value("${static.resources.cache-chain:true}")
+  private boolean cacheChain;
+
+  @Value("${static.resources.max-age-days:365}")
+  private long maxAgeDays;
+
   @Override
   public void addResourceHandlers(ResourceHandlerRegistry registry) {
-    registry.addResourceHandler("/css/**")
-        .addResourceLocations("classpath:/static/css/", "file:src/main/resources/static/css/");
-    registry.addResourceHandler("/js/**")
-        .addResourceLocations("classpath:/static/js/", "file:src/main/resources/static/js/");
-    registry.addResourceHandler("/images/**")
-        .addResourceLocations("classpath:/static/images/", "file:src/main/resources/static/images/");
-    registry.addResourceHandler("/fonts/**")
-        .addResourceLocations("classpath:/static/fonts/", "file:src/main/resources/static/fonts/");
-    registry.addResourceHandler("/uploads/**")
-        .addResourceLocations("classpath:/static/uploads/", "file:src/main/resources/static/uploads/");
+    CacheControl immutable = CacheControl.maxAge(Duration.ofDays(maxAgeDays)).cachePublic().immutable();
+
+    chain(registry.addResourceHandler("/css/**")
+        .addResourceLocations("classpath:/static/css/", "file:src/main/resources/static/css/")
+        .setCacheControl(immutable))
+        .addTransformer(new CssLinkResourceTransformer()); // url(...) ใน css ก็ได้ hash ด้วย
+    chain(registry.addResourceHandler("/js/**")
+        .addResourceLocations("classpath:/static/js/", "file:src/main/resources/static/js/")
+        .setCacheControl(immutable));
+    chain(registry.addResourceHandler("/images/**")
+        .addResourceLocations("classpath:/static/images/", "file:src/main/resources/static/images/")
+        .setCacheControl(immutable));
+    chain(registry.addResourceHandler("/fonts/**")
+        .addResourceLocations("classpath:/static/fonts/", "file:src/main/resources/static/fonts/")
+        .setCacheControl(immutable));
+  }
+
+  private ResourceChainRegistration chain(ResourceHandlerRegistration reg) {
+    return reg.resourceChain(cacheChain)
+        .addResolver(new EncodedResourceResolver())
+        .addResolver(new VersionResourceResolver().addContentVersionStrategy("/**"));
   }
-}
 
+  /** ให้ @{...} ใน Thymeleaf แปลงเป็น URL ที่มี content hash */
+  @Bean
+  public ResourceUrlEncodingFilter resourceUrlEncodingFilter() {
+    return new ResourceUrlEncodingFilter();
+  }
+}
@@ -0,0 +1,23 @@
+package com.projectgo.barber_booking.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/** argument resolver ของ controller (@CurrentUser) — ไฟล์ static แยกไว้ที่ StaticResourceConfig */
+@Configuration
+public class WebMvcConfig implements WebMvcConfigurer {
+
+  private final CurrentUserArgumentResolver currentUserResolver;
+
+  public WebMvcConfig(CurrentUserArgumentResolver currentUserResolver) {
+    this.currentUserResolver = currentUserResolver;
+  }
+
+  @Override
+  public void addArgumentResolvers(List<HandlerMethodArgumentResolver> resolvers) {
+    resolvers.add(currentUserResolver);
+  }
+}
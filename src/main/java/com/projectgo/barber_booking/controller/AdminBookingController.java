@@ -1,22 +1,38 @@
 package com.projectgo.barber_booking.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectgo.barber_booking.dto.BookingCursor;
+import com.projectgo.barber_booking.dto.BookingPageDTO;
+import com.projectgo.barber_booking.dto.BookingRowDTO;
+import com.projectgo.barber_booking.dto.ImportReportDTO;
 import com.projectgo.barber_booking.model.Booking;
+import com.projectgo.barber_booking.model.BookingStatus;
 import com.projectgo.barber_booking.repository.BookingRepository;
-import com.projectgo.barber_booking.service.NotificationService;
-import com.projectgo.barber_booking.spec.BookingSpecs;
+import com.projectgo.barber_booking.service.BookingCsvExporter;
+import com.projectgo.barber_booking.service.BookingFilters;
+import com.projectgo.barber_booking.service.BookingCsvImporter;
+import com.projectgo.barber_booking.service.BookingListReader;
+import com.projectgo.barber_booking.service.BookingRollup;
+import com.projectgo.barber_booking.service.BookingSearchService;
+import com.projectgo.barber_booking.service.BookingService;
+import com.projectgo.barber_booking.service.SlotAvailabilityIndex;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.data.domain.Sort;
-import org.springframework.data.jpa.domain.Specification;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.multipart.MultipartFile;
 
-import java.io.PrintWriter;
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 @RestController
 @RequestMapping("/api/admin/bookings")
@@ -26,14 +42,38 @@ public class AdminBookingController {
     private BookingRepository bookingRepository;
 
     @Autowired
-    private NotificationService notificationService;
+    private BookingService bookingService;
 
-    // ✅ สถานะที่อนุญาต
-    private static final Set<String> ALLOWED_STATUSES =
-            Set.of("รอดำเนินการ", "ยืนยันแล้ว", "ยกเลิก", "เสร็จสิ้น");
+    @Autowired
+    private SlotAvailabilityIndex slotIndex;
+
+    @Autowired
+    private BookingCsvExporter csvExporter;
+
+    @Autowired
+    private BookingSearchService bookingSearch;
+
+    @Autowired
+    private BookingListReader listReader;
+
+    @Autowired
+    private BookingCsvImporter csvImporter;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${admin.bookings.page-size:50}")
+    private int defaultPageSize;
+
+    @Value("${admin.bookings.max-page-size:200}")
+    private int maxPageSize;
 
+    @Value("${admin.bookings.bulk-max-ids:500}")
+    private int maxBulkIds;
+
+    // ✅ สถานะที่อนุญาต (ตาม ck_bookings_status)
     private boolean isValidStatus(String s) {
-        return s != null && ALLOWED_STATUSES.contains(s);
+        return BookingStatus.isValid(s);
     }
 
     // ✅ CREATE
@@ -45,28 +85,74 @@ public class AdminBookingController {
             return ResponseEntity.badRequest().<Booking>build();
         }
 
-        Booking saved = bookingRepository.save(booking);
-
-        // 🔔 แจ้งเตือน
-        notificationService.sendNewBookingAlert(saved);   // LINE (ถ้าเปิดใช้)
-        notificationService.sendBookingConfirmation(saved); // อีเมลยืนยันถึงลูกค้า (ถ้าเปิดใช้)
+        // 🔔 บันทึก + คิวแจ้งเตือน (LINE/อีเมล ถ้าเปิดใช้) ใน transaction เดียว
+        Booking saved = bookingService.create(booking);
+        slotIndex.onCreated(saved);
 
         return ResponseEntity.ok(saved);
     }
 
-    // ✅ LIST + FILTERS + ค้นหาอิสระ 'q'
+    // ✅ LIST + FILTERS + ค้นหาอิสระ 'q' (keyset pagination บน date, time, id)
+    // cursor = nextCursor/prevCursor จากหน้าก่อน, dir = next|prev, withCount=true ถ้าต้องการยอดรวม
     @GetMapping
-    public List<Booking> getAllBookings(
+    public BookingPageDTO getAllBookings(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String barber,
             @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
             @RequestParam(required = false, name = "startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false, name = "endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
-            @RequestParam(required = false, name = "q") String q
+            @RequestParam(required = false, name = "q") String q,
+            @RequestParam(required = false) Integer size,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "next") String dir,
+            @RequestParam(defaultValue = "false") boolean withCount
     ) {
-        Specification<Booking> spec = BookingSpecs.byFilters(status, barber, date, startDate, endDate, q);
-        Sort sort = Sort.by(Sort.Order.asc("date"), Sort.Order.asc("time"));
-        return bookingRepository.findAll(spec, sort);
+        BookingFilters filters =
+                new BookingFilters(status, barber, date, startDate, endDate, q);
+        int limit = Math.min(Math.max(1, size == null ? defaultPageSize : size), maxPageSize);
+        BookingCursor at = BookingCursor.decode(cursor);
+        boolean backward = at != null && "prev".equalsIgnoreCase(dir);
+
+        // ดึงเกิน 1 แถวเพื่อรู้ว่ามีหน้าถัดไปไหม โดยไม่ต้อง count(*) — อ่านเป็น DTO ตรงจาก JDBC
+        List<BookingRowDTO> rows = listReader.page(filters, at, backward, limit + 1);
+        boolean more = rows.size() > limit;
+        if (more) rows = backward ? rows.subList(1, rows.size()) : rows.subList(0, limit);
+
+        boolean hasNext = backward || more;
+        boolean hasPrev = backward ? more : at != null;
+        String next = (hasNext && !rows.isEmpty()) ? BookingCursor.of(rows.get(rows.size() - 1)).encode() : null;
+        String prev = (hasPrev && !rows.isEmpty()) ? BookingCursor.of(rows.get(0)).encode() : null;
+        Long total = withCount ? listReader.count(filters) : null;
+
+        return new BookingPageDTO(rows, limit, next, prev, total);
+    }
+
+    // ✅ รายการทั้งหมดตามตัวกรองเป็น JSON array แบบ stream (ไม่โหลดทั้งชุดเข้าหน่วยความจำ)
+    @GetMapping("/stream")
+    public void streamBookings(
+            @RequestParam(required = false) String status,
+            @RequestParam(required = false) String barber,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date,
+            @RequestParam(required = false, name = "startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
+            @RequestParam(required = false, name = "endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
+            @RequestParam(required = false, name = "q") String q,
+            HttpServletResponse response
+    ) throws Exception {
+        BookingFilters filters =
+                new BookingFilters(status, barber, date, startDate, endDate, q);
+
+        response.setContentType("application/json");
+        response.setCharacterEncoding("UTF-8");
+        try (JsonGenerator g = objectMapper.getFactory().createGenerator(response.getOutputStream())) {
+            listReader.writeJson(filters, g);
+        }
+    }
+
+    // ✅ ค้นหาแบบจัดอันดับ (ใช้ trigram index ถ้ามี)
+    @GetMapping("/search")
+    public List<Booking> search(@RequestParam("q") String q,
+                                @RequestParam(defaultValue = "20") int limit) {
+        return bookingSearch.search(q, Math.min(Math.max(1, limit), maxPageSize));
     }
 
     // ✅ GET BY ID
@@ -86,7 +172,8 @@ public class AdminBookingController {
 
         return bookingRepository.findById(id)
                 .map(b -> {
-                    String oldStatus = b.getStatus();
+                    BookingRollup.Key key = BookingRollup.Key.of(b);
+                    SlotAvailabilityIndex.Slot before = SlotAvailabilityIndex.Slot.of(b);
 
                     b.setUsername(updated.getUsername());
                     b.setService(updated.getService());
@@ -98,11 +185,9 @@ public class AdminBookingController {
                         b.setStatus(updated.getStatus());
                     }
 
-                    Booking saved = bookingRepository.save(b);
-
-                    if (updated.getStatus() != null && !updated.getStatus().equals(oldStatus)) {
-                        notificationService.sendStatusChange(saved, oldStatus, saved.getStatus());
-                    }
+                    // สถานะเปลี่ยน → คิวแจ้งเตือนใน transaction เดียวกับการบันทึก
+                    Booking saved = bookingService.update(b, key);
+                    slotIndex.onUpdated(before, saved);
                     return saved;
                 })
                 .map(ResponseEntity::ok)
@@ -122,25 +207,57 @@ public class AdminBookingController {
             if (body.status.equals(oldStatus)) {
                 return ResponseEntity.ok(b); // ไม่มีการเปลี่ยน
             }
+            BookingRollup.Key key = BookingRollup.Key.of(b);
+            SlotAvailabilityIndex.Slot before = SlotAvailabilityIndex.Slot.of(b);
             b.setStatus(body.status);
-            Booking saved = bookingRepository.save(b);
-            notificationService.sendStatusChange(saved, oldStatus, saved.getStatus());
+            Booking saved = bookingService.update(b, key);
+            slotIndex.onUpdated(before, saved);
             return ResponseEntity.ok(saved);
         }).orElse(ResponseEntity.notFound().build());
     }
 
+    // ✅ PATCH STATUS แบบกลุ่ม: { "ids": [1,2,3], "status": "ยืนยันแล้ว" } — 1 UPDATE, แจ้งเตือนเป็นชุด
+    public static class BulkStatusDTO { public List<Long> ids; public String status; }
+
+    @PatchMapping("/status")
+    public ResponseEntity<BookingService.BulkStatusResult> patchStatuses(@RequestBody BulkStatusDTO body) {
+        if (body == null || body.ids == null || body.ids.isEmpty() || !isValidStatus(body.status)) {
+            return ResponseEntity.badRequest().build();
+        }
+        if (body.ids.size() > maxBulkIds) {
+            throw new IllegalArgumentException("เลือกได้ไม่เกิน " + maxBulkIds + " รายการต่อครั้ง");
+        }
+        return ResponseEntity.ok(bookingService.updateStatuses(body.ids, body.status));
+    }
+
     // ✅ DELETE
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> deleteBooking(@PathVariable Long id) {
-        if (!bookingRepository.existsById(id)) {
+        Booking b = bookingRepository.findById(id).orElse(null);
+        if (b == null) {
             return ResponseEntity.notFound().build();
         }
-        bookingRepository.deleteById(id);
+        bookingService.delete(b);
+        slotIndex.onDeleted(SlotAvailabilityIndex.Slot.of(b));
         return ResponseEntity.noContent().build();
     }
 
-    // ✅ EXPORT CSV (รองรับตัวกรองและ q)
-    @GetMapping(value = "/export", produces = "text/csv; charset=UTF-8")
+    // ✅ IMPORT CSV (header แบบเดียวกับไฟล์ export) — ส่งไฟล์เป็น body ตรง ๆ (text/csv) จะ stream ได้ไม่จำกัดขนาด
+    @PostMapping(value = "/import", consumes = {"text/csv", MediaType.TEXT_PLAIN_VALUE})
+    public ImportReportDTO importCsv(HttpServletRequest request) throws IOException {
+        return csvImporter.importCsv(request.getInputStream());
+    }
+
+    // ✅ IMPORT CSV ผ่านฟอร์มอัปโหลด (จำกัดขนาดตาม spring.servlet.multipart.*)
+    @PostMapping(value = "/import", consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
+    public ImportReportDTO importCsvFile(@RequestParam("file") MultipartFile file) throws IOException {
+        try (InputStream in = file.getInputStream()) {
+            return csvImporter.importCsv(in);
+        }
+    }
+
+    // ✅ EXPORT CSV (รองรับตัวกรองและ q) — stream ทีละแถว, gzip=true เพื่อบีบอัด
+    @GetMapping("/export")
     public void exportCsv(
             @RequestParam(required = false) String status,
             @RequestParam(required = false) String barber,
@@ -148,39 +265,29 @@ public class AdminBookingController {
             @RequestParam(required = false, name = "startDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate startDate,
             @RequestParam(required = false, name = "endDate") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate endDate,
             @RequestParam(required = false, name = "q") String q,
+            @RequestParam(defaultValue = "false") boolean gzip,
             HttpServletResponse response
     ) throws Exception {
 
-        Specification<Booking> spec = BookingSpecs.byFilters(status, barber, date, startDate, endDate, q);
-        Sort sort = Sort.by(Sort.Order.asc("date"), Sort.Order.asc("time"));
-        List<Booking> list = bookingRepository.findAll(spec, sort);
-
-        response.setContentType("text/csv; charset=UTF-8");
-        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
-        response.setHeader("Content-Disposition", "attachment; filename=bookings.csv");
-
-        try (PrintWriter out = response.getWriter()) {
-            out.write("\uFEFF"); // BOM สำหรับ Excel
-            out.println("ID,Username,Service,Date,Time,Barber,Status,Note");
-            for (Booking b : list) {
-                out.printf("%s,%s,%s,%s,%s,%s,%s,%s%n",
-                        csv(b.getId()),
-                        csv(b.getUsername()),
-                        csv(b.getService()),
-                        csv(b.getDate()),
-                        csv(b.getTime()),
-                        csv(b.getBarber()),
-                        csv(b.getStatus()),
-                        csv(b.getNote()));
+        BookingFilters filters =
+                new BookingFilters(status, barber, date, startDate, endDate, q);
+
+        if (gzip) {
+            response.setContentType("application/gzip");
+            response.setHeader("Content-Disposition", "attachment; filename=bookings.csv.gz");
+        } else {
+            response.setContentType("text/csv; charset=UTF-8");
+            response.setHeader("Content-Disposition", "attachment; filename=bookings.csv");
+        }
+
+        OutputStream out = response.getOutputStream();
+        if (gzip) {
+            try (GZIPOutputStream gz = new GZIPOutputStream(out, 64 * 1024)) {
+                csvExporter.export(filters, gz);
             }
+        } else {
+            csvExporter.export(filters, out);
             out.flush();
         }
     }
-
-    private String csv(Object v) {
-        if (v == null) return "";
-        String s = String.valueOf(v).replace("\"", "\"\"");
-        if (s.contains(",") || s.contains("\n")) s = "\"" + s + "\"";
-        return s;
-    }
 }
@@ -1,33 +1,81 @@
 package com.projectgo.barber_booking.controller;
 
 import com.projectgo.barber_booking.dto.AdminStatsDTO;
-import com.projectgo.barber_booking.repository.BookingRepository;
+import com.projectgo.barber_booking.dto.AdminStatsRangeDTO;
+import com.projectgo.barber_booking.service.AdminStatsService;
+import com.projectgo.barber_booking.service.BookingRollup;
+import com.projectgo.barber_booking.service.DbBulkhead;
+import com.projectgo.barber_booking.service.LoginAttemptGuard;
+import com.projectgo.barber_booking.service.PasswordHashExecutor;
 import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.web.bind.annotation.*;
 
 import java.time.LocalDate;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/admin/stats")
 public class AdminStatsController {
 
-    private final BookingRepository repo;
+    private final AdminStatsService stats;
+    private final BookingRollup rollup;
+    private final PasswordHashExecutor passwordHasher;
+    private final LoginAttemptGuard loginGuard;
+    private final DbBulkhead dbBulkhead;
 
-    public AdminStatsController(BookingRepository repo) {
-        this.repo = repo;
+    public AdminStatsController(AdminStatsService stats, BookingRollup rollup,
+                                PasswordHashExecutor passwordHasher, LoginAttemptGuard loginGuard,
+                                DbBulkhead dbBulkhead) {
+        this.stats = stats;
+        this.rollup = rollup;
+        this.passwordHasher = passwordHasher;
+        this.loginGuard = loginGuard;
+        this.dbBulkhead = dbBulkhead;
     }
 
     @GetMapping
     public AdminStatsDTO getStats(@RequestParam(required = false)
                                   @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate date) {
         LocalDate d = (date != null) ? date : LocalDate.now();
+        return stats.day(d);
+    }
+
+    // ✅ ช่วงวันที่: ต่อวัน + ต่อช่าง + ต่อบริการ (query เดียว) — ไม่ใส่ from/to = 7 วันล่าสุด
+    @GetMapping("/range")
+    public AdminStatsRangeDTO getRange(
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate end = (to != null) ? to : LocalDate.now();
+        LocalDate start = (from != null) ? from : end.minusDays(6);
+        return stats.range(start, end);
+    }
+
+    // ✅ สถานะการล็อกอิน: เวลา hash / คิว / จำนวนที่ถูกปฏิเสธ (429)
+    @GetMapping("/login")
+    public Map<String, Object> getLoginStats() {
+        return Map.of("hash", passwordHasher.stats(), "guard", loginGuard.stats());
+    }
+
+    // ✅ คิวฐานข้อมูล (DbBulkhead): ใช้อยู่ / รอ / ถูกปฏิเสธ (503)
+    @GetMapping("/db")
+    public DbBulkhead.Stats getDbStats() {
+        return dbBulkhead.stats();
+    }
 
-        long total     = repo.countByDate(d);
-        long pending   = repo.countByStatusAndDate("รอดำเนินการ", d);
-        long confirmed = repo.countByStatusAndDate("ยืนยันแล้ว", d);
-        long done      = repo.countByStatusAndDate("เสร็จสิ้น", d);
-        long canceled  = repo.countByStatusAndDate("ยกเลิก", d);
+    // ✅ ตรวจ rollup เทียบกับ bookings จริง (repair=true → rebuild เมื่อพบ drift)
+    @PostMapping("/rollup/verify")
+    public BookingRollup.Report verifyRollup(@RequestParam(defaultValue = "false") boolean repair) {
+        BookingRollup.Report r = rollup.verify();
+        if (repair && r.driftRows() > 0) {
+            rollup.rebuild();
+            return new BookingRollup.Report(r.checkedAt(), r.driftRows(), r.sample(), true);
+        }
+        return r;
+    }
 
-        return new AdminStatsDTO(d, total, pending, confirmed, done, canceled);
+    // ✅ สร้าง rollup ใหม่ทั้งตาราง
+    @PostMapping("/rollup/rebuild")
+    public Map<String, Object> rebuildRollup() {
+        return Map.of("rows", rollup.rebuild());
     }
 }
@@ -1,11 +1,15 @@
 package com.projectgo.barber_booking.controller;
 
 import com.projectgo.barber_booking.model.Booking;
-import com.projectgo.barber_booking.model.ServiceReview;
 import com.projectgo.barber_booking.repository.BookingRepository;
 import com.projectgo.barber_booking.repository.ServiceReviewRepository;
-import com.projectgo.barber_booking.service.NotificationService;
+import com.projectgo.barber_booking.service.BarberAssignmentService;
+import com.projectgo.barber_booking.service.BookingService;
+import com.projectgo.barber_booking.service.SlotAvailabilityIndex;
+import com.projectgo.barber_booking.service.SlotHoldRegistry;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
@@ -22,22 +26,32 @@ import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeFormatterBuilder;
 import java.time.format.DateTimeParseException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 /** ✅ Controller ฝั่งลูกค้า (Customer Booking Flow) */
 @Controller
 public class BookingController {
 
+    private static final int USER_BOOKINGS_PAGE_SIZE = 10;
+
     private final BookingRepository bookingRepository;
-    private final NotificationService notificationService;
+    private final BookingService bookingService;
     private final ServiceReviewRepository reviewRepository;
+    private final SlotAvailabilityIndex slotIndex;
+    private final SlotHoldRegistry slotHolds;
+    private final BarberAssignmentService barberAssignment;
 
     public BookingController(BookingRepository bookingRepository,
-                             NotificationService notificationService,
-                             ServiceReviewRepository reviewRepository) {
+                             BookingService bookingService,
+                             ServiceReviewRepository reviewRepository,
+                             SlotAvailabilityIndex slotIndex,
+                             SlotHoldRegistry slotHolds,
+                             BarberAssignmentService barberAssignment) {
         this.bookingRepository = bookingRepository;
-        this.notificationService = notificationService;
+        this.bookingService = bookingService;
         this.reviewRepository = reviewRepository;
+        this.slotIndex = slotIndex;
+        this.slotHolds = slotHolds;
+        this.barberAssignment = barberAssignment;
     }
 
     // STEP 1: หน้าเลือกบริการ
@@ -54,19 +68,56 @@ public class BookingController {
         return "select_time";
     }
 
-    // STEP 3: หน้ายืนยันการจอง
+    // STEP 3: หน้ายืนยันการจอง (จอง hold ช่องเวลาไว้ชั่วคราวระหว่างที่ผู้ใช้ตัดสินใจ)
     @GetMapping("/booking/confirm")
     public String confirmBooking(@RequestParam String service,
                                  @RequestParam String date,
                                  @RequestParam String time,
                                  @RequestParam String barber,
                                  @RequestParam(required = false) String note,
-                                 Model model) {
+                                 Principal principal,
+                                 Model model,
+                                 RedirectAttributes ra) {
+        if (principal == null) {
+            return "redirect:/login";
+        }
+
+        LocalDate d;
+        LocalTime t;
+        try {
+            d = LocalDate.parse(date);
+            t = parseTimeFlexible(time);
+        } catch (DateTimeParseException ex) {
+            ra.addFlashAttribute("errorMessage", "รูปแบบวัน-เวลาไม่ถูกต้อง");
+            return "redirect:/booking/select-time?service=" + url(service);
+        }
+
+        // "ไม่เลือกช่าง" → ให้ระบบเลือกช่างที่ว่างและภาระน้อยสุด (assign จะถือ hold ให้เลย)
+        if (BarberAssignmentService.isNoPreference(barber)) {
+            Optional<String> assigned = barberAssignment.assign(d, t, principal.getName());
+            if (assigned.isEmpty()) {
+                ra.addFlashAttribute("errorMessage", "ไม่มีช่างว่างในช่วงเวลานี้ กรุณาเลือกเวลาอื่น");
+                return "redirect:/booking/select-time?service=" + url(service);
+            }
+            barber = assigned.get();
+        } else {
+            if (slotIndex.isTaken(barber, d, t)) {
+                ra.addFlashAttribute("errorMessage", "ช่วงเวลานี้ถูกจองแล้ว กรุณาเลือกเวลาอื่น");
+                return "redirect:/booking/select-time?service=" + url(service);
+            }
+            SlotAvailabilityIndex.Slot slot = new SlotAvailabilityIndex.Slot(barber, d, t);
+            if (slotHolds.acquire(slot, principal.getName()).isEmpty()) {
+                ra.addFlashAttribute("errorMessage", "มีผู้ใช้อื่นกำลังจองช่วงเวลานี้ กรุณาเลือกเวลาอื่น");
+                return "redirect:/booking/select-time?service=" + url(service);
+            }
+        }
+
         model.addAttribute("service", service);
         model.addAttribute("date", date);
         model.addAttribute("time", time);
         model.addAttribute("barber", barber);
         model.addAttribute("note", note);
+        model.addAttribute("holdMinutes", Math.max(1, slotHolds.ttlSeconds() / 60));
         return "confirm_booking";
     }
 
@@ -92,16 +143,28 @@ public class BookingController {
             ra.addFlashAttribute("errorMessage", "รูปแบบวัน-เวลาไม่ถูกต้อง");
             return "redirect:/booking/select-time?service=" + url(service);
         }
+        // ส่งตรงมาแบบ "ไม่เลือกช่าง" (ไม่ผ่านหน้ายืนยัน) → เลือกช่างจริงให้ก่อนบันทึก
+        if (BarberAssignmentService.isNoPreference(barber)) {
+            Optional<String> assigned = barberAssignment.assign(d, t, principal.getName());
+            if (assigned.isEmpty()) {
+                ra.addFlashAttribute("errorMessage", "ไม่มีช่างว่างในช่วงเวลานี้ กรุณาเลือกเวลาอื่น");
+                return "redirect:/booking/select-time?service=" + url(service);
+            }
+            barber = assigned.get();
+        }
+        SlotAvailabilityIndex.Slot slot = new SlotAvailabilityIndex.Slot(barber, d, t);
 
         try {
-            // กันเวลาชน ถ้าใน repository มีเมธอดนี้
-            try {
-                if (hasExistsMethod() &&
-                    bookingRepository.existsByBarberAndDateAndTime(barber, d, t)) {
-                    ra.addFlashAttribute("errorMessage", "ช่วงเวลานี้ถูกจองแล้ว กรุณาเลือกเวลาอื่น");
-                    return "redirect:/booking/select-time?service=" + url(service);
-                }
-            } catch (NoSuchMethodError | RuntimeException ignored) {}
+            // กันเวลาชนจากดัชนีในหน่วยความจำ (unique index ใน DB ยังเป็นด่านสุดท้าย)
+            if (slotIndex.isTaken(barber, d, t)) {
+                ra.addFlashAttribute("errorMessage", "ช่วงเวลานี้ถูกจองแล้ว กรุณาเลือกเวลาอื่น");
+                return "redirect:/booking/select-time?service=" + url(service);
+            }
+            // มีคนอื่นถือ hold ช่องนี้อยู่ (ยังไม่หมดอายุ) → ไม่ต้องเสีย insert
+            if (slotHolds.isHeldByOther(slot, principal.getName())) {
+                ra.addFlashAttribute("errorMessage", "มีผู้ใช้อื่นกำลังจองช่วงเวลานี้ กรุณาเลือกเวลาอื่น");
+                return "redirect:/booking/select-time?service=" + url(service);
+            }
 
             Booking booking = new Booking();
             booking.setService(service);
@@ -112,22 +175,22 @@ public class BookingController {
             booking.setUsername(principal.getName());
             booking.setStatus("รอดำเนินการ");
 
-            Booking saved = bookingRepository.save(booking);
-
-            // แจ้งเตือน (ไม่กระทบกรณีปิดใช้ NotificationService)
-            try {
-                notificationService.sendBookingConfirmation(saved);
-                notificationService.sendNewBookingAlert(saved);
-            } catch (Exception ignore) {}
+            // บันทึก + คิวแจ้งเตือนใน transaction เดียว (ส่งจริงเบื้องหลังโดย NotificationDispatcher)
+            Booking saved = bookingService.create(booking);
+            slotIndex.onCreated(saved);
 
             ra.addFlashAttribute("successMessage", "จองสำเร็จ! ระบบได้ส่งอีเมลยืนยันให้แล้ว");
             return "redirect:/booking/success";
         } catch (DataIntegrityViolationException dup) {
+            slotIndex.invalidate(barber, d); // ดัชนีตามไม่ทัน → โหลดวันนั้นใหม่รอบหน้า
             ra.addFlashAttribute("errorMessage", "ช่วงเวลานี้ถูกจองแล้ว กรุณาเลือกเวลาอื่น");
             return "redirect:/booking/select-time?service=" + url(service);
         } catch (Exception e) {
             ra.addFlashAttribute("errorMessage", "บันทึกไม่สำเร็จ กรุณาลองใหม่");
             return "redirect:/booking/select-time?service=" + url(service);
+        } finally {
+            // สำเร็จ = hold กลายเป็น booking จริงแล้ว, ไม่สำเร็จ = คืนช่องให้คนอื่น (release เฉพาะ hold ของเราเอง)
+            slotHolds.release(slot, principal.getName());
         }
     }
 
@@ -148,26 +211,18 @@ public class BookingController {
         return "booking_detail";
     }
 
-    // STEP 5: รายการจองของผู้ใช้ + ส่ง reviewedIds ไป UI
+    // STEP 5: รายการจองของผู้ใช้ (แบ่งหน้า ใหม่สุดก่อน) — ธง reviewed มากับแต่ละแถวใน query เดียว
     @GetMapping("/all-bookings")
-    public String showAllBookings(Model model, Principal principal) {
+    public String showAllBookings(@RequestParam(defaultValue = "1") int page, Model model, Principal principal) {
         if (principal == null) return "redirect:/login";
 
         String username = principal.getName();
-        List<Booking> bookings = Optional.ofNullable(bookingRepository.findAllByUsername(username))
-                .orElseGet(Collections::emptyList);
-
-        Set<Long> reviewedIds = Collections.emptySet();
-        if (!bookings.isEmpty()) {
-            List<Long> ids = bookings.stream().map(Booking::getId).toList();
-            reviewedIds = reviewRepository.findAllByBookingIdIn(ids).stream()
-                    .map(ServiceReview::getBookingId)
-                    .collect(Collectors.toSet());
-        }
+        int pageIndex = Math.max(page, 1) - 1; // URL เป็น 1-based
+        Page<BookingRepository.UserBookingRow> bookings =
+                bookingRepository.findUserBookings(username, PageRequest.of(pageIndex, USER_BOOKINGS_PAGE_SIZE));
 
         model.addAttribute("username", username);
         model.addAttribute("bookings", bookings);
-        model.addAttribute("reviewedIds", reviewedIds);
         return "user_bookings";
     }
 
@@ -218,15 +273,4 @@ public class BookingController {
     private String url(String s) {
         return s == null ? "" : URLEncoder.encode(s, StandardCharsets.UTF_8);
     }
-
-    /** เช็คว่ามีเมธอด existsByBarberAndDateAndTime อยู่ใน BookingRepository หรือไม่ (ไม่พังของเดิม) */
-    private boolean hasExistsMethod() {
-        try {
-            bookingRepository.getClass()
-                    .getMethod("existsByBarberAndDateAndTime", String.class, LocalDate.class, LocalTime.class);
-            return true;
-        } catch (NoSuchMethodException e) {
-            return false;
-        }
-    }
 }
@@ -1,30 +1,95 @@
 package com.projectgo.barber_booking.controller;
 
+import com.projectgo.barber_booking.exception.SlotConflictException;
 import com.projectgo.barber_booking.model.Booking;
 import com.projectgo.barber_booking.repository.BookingRepository;
+import com.projectgo.barber_booking.service.BarberAssignmentService;
+import com.projectgo.barber_booking.service.BookingRollup;
+import com.projectgo.barber_booking.service.BookingService;
+import com.projectgo.barber_booking.service.SlotAvailabilityIndex;
+import com.projectgo.barber_booking.service.SlotHoldRegistry;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.security.Principal;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/bookings")
 public class BookingRestController {
 
     private final BookingRepository bookingRepository;
-
-    public BookingRestController(BookingRepository bookingRepository) {
+    private final BookingService bookingService;
+    private final SlotAvailabilityIndex slotIndex;
+    private final SlotHoldRegistry slotHolds;
+    private final BarberAssignmentService barberAssignment;
+
+    public BookingRestController(BookingRepository bookingRepository,
+                                 BookingService bookingService,
+                                 SlotAvailabilityIndex slotIndex,
+                                 SlotHoldRegistry slotHolds,
+                                 BarberAssignmentService barberAssignment) {
         this.bookingRepository = bookingRepository;
+        this.bookingService = bookingService;
+        this.slotIndex = slotIndex;
+        this.slotHolds = slotHolds;
+        this.barberAssignment = barberAssignment;
     }
 
-    // สร้างการจอง (เดิม)
+    // สร้างการจอง (เดิม) + เลือกช่างให้อัตโนมัติเมื่อไม่ระบุ/ "ไม่เลือกช่าง"
     @PostMapping
     public Booking createBooking(@RequestBody Booking booking) {
-        return bookingRepository.save(booking);
+        String holder = (booking.getUsername() == null) ? "" : booking.getUsername();
+        boolean assigned = false;
+        if (BarberAssignmentService.isNoPreference(booking.getBarber())
+                && booking.getDate() != null && booking.getTime() != null) {
+            String barber = barberAssignment.assign(booking.getDate(), booking.getTime(), holder)
+                    .orElseThrow(() -> new SlotConflictException("ไม่มีช่างว่างในช่วงเวลานี้"));
+            booking.setBarber(barber);
+            assigned = true;
+        } else if (booking.getBarber() != null && booking.getDate() != null && booking.getTime() != null
+                && slotHolds.isHeldByOther(SlotAvailabilityIndex.Slot.of(booking), holder)) {
+            // ผู้ใช้หน้าเว็บถือ hold ช่องนี้อยู่ (หน้ายืนยัน) → ไม่ให้ API แย่งไป
+            throw new SlotConflictException("มีผู้ใช้อื่นกำลังจองช่วงเวลานี้");
+        }
+        try {
+            Booking saved = bookingService.create(booking, false);
+            slotIndex.onCreated(saved);
+            return saved;
+        } catch (DataIntegrityViolationException dup) {
+            slotIndex.invalidate(booking.getBarber(), booking.getDate());
+            throw dup; // ให้ RestExceptionHandler ตอบ 409 ตามเดิม
+        } finally {
+            if (assigned) slotHolds.release(SlotAvailabilityIndex.Slot.of(booking), holder);
+        }
+    }
+
+    // 0) ช่องเวลาว่างของช่างในวันนั้น (ตอบจากหน่วยความจำ, ตัดช่องที่คนอื่นถือ hold อยู่ออก)
+    @GetMapping("/availability")
+    public Map<String, Object> availability(@RequestParam String barber,
+                                            @RequestParam String date,
+                                            Principal principal) {
+        LocalDate d = parseDate(date.trim());
+        String me = (principal == null) ? "" : principal.getName();
+        DateTimeFormatter hhmm = DateTimeFormatter.ofPattern("HH:mm");
+
+        List<LocalTime> held = slotHolds.heldTimes(barber, d, me);
+        List<LocalTime> slots = BarberAssignmentService.isNoPreference(barber)
+                ? barberAssignment.freeSlotsAnyBarber(d)
+                : slotIndex.freeSlots(barber, d);
+        List<String> free = slots.stream()
+                .filter(t -> !held.contains(t))
+                .map(t -> t.format(hhmm))
+                .toList();
+        return Map.of("barber", barber, "date", d.toString(), "free", free,
+                "held", held.stream().map(t -> t.format(hhmm)).toList());
     }
 
     // ----- 🔧 ฟังก์ชันที่เพิ่มเข้ามา -----
@@ -40,8 +105,12 @@ public class BookingRestController {
         if (status == null || status.isBlank()) {
             return ResponseEntity.badRequest().build();
         }
+        BookingRollup.Key key = BookingRollup.Key.of(b);
+        SlotAvailabilityIndex.Slot before = SlotAvailabilityIndex.Slot.of(b);
         b.setStatus(status.trim());
-        return ResponseEntity.ok(bookingRepository.save(b));
+        Booking saved = bookingService.update(b, key, false);
+        slotIndex.onUpdated(before, saved);
+        return ResponseEntity.ok(saved);
     }
 
     // 2) อัปเดตวันและเวลา (endpoint หลัก)
@@ -50,6 +119,8 @@ public class BookingRestController {
                                                   @RequestBody ScheduleDTO body) {
         Booking b = bookingRepository.findById(id).orElse(null);
         if (b == null) return ResponseEntity.notFound().build();
+        BookingRollup.Key key = BookingRollup.Key.of(b);
+        SlotAvailabilityIndex.Slot before = SlotAvailabilityIndex.Slot.of(b);
 
         // รองรับได้ทั้ง "yyyy-MM-dd" (จาก <input type=date>) และ "dd/MM/yyyy"
         if (body.date() != null && !body.date().isBlank()) {
@@ -59,7 +130,14 @@ public class BookingRestController {
         if (body.time() != null && !body.time().isBlank()) {
             b.setTime(parseTime(body.time().trim()));
         }
-        return ResponseEntity.ok(bookingRepository.save(b));
+        try {
+            Booking saved = bookingService.update(b, key, false);
+            slotIndex.onUpdated(before, saved);
+            return ResponseEntity.ok(saved);
+        } catch (DataIntegrityViolationException dup) {
+            slotIndex.invalidate(b.getBarber(), b.getDate());
+            throw dup;
+        }
     }
 
     // 2.1) alias ให้ตรงกับหน้าเดิมที่เรียก /{id}/time  ✅ แก้ 404 ได้ทันที
@@ -72,8 +150,10 @@ public class BookingRestController {
     // 3) ลบ/ยกเลิกการจอง (ถ้าหน้าคุณเรียก DELETE)
     @DeleteMapping("/{id}")
     public ResponseEntity<Void> delete(@PathVariable Long id) {
-        if (!bookingRepository.existsById(id)) return ResponseEntity.notFound().build();
-        bookingRepository.deleteById(id);
+        Booking b = bookingRepository.findById(id).orElse(null);
+        if (b == null) return ResponseEntity.notFound().build();
+        bookingService.delete(b);
+        slotIndex.onDeleted(SlotAvailabilityIndex.Slot.of(b));
         return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
     }
 
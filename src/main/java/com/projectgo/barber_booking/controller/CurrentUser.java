@@ -0,0 +1,16 @@
+package com.projectgo.barber_booking.controller;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * พารามิเตอร์ User ของผู้ที่ล็อกอินอยู่ (null ถ้ายังไม่ล็อกอินหรือไม่พบผู้ใช้)
+ * อ่านผ่าน UserCache และจำไว้ใน request → ใน 1 request ค้นผู้ใช้อย่างมากครั้งเดียว
+ * ได้สำเนาที่ไม่มีรหัสผ่าน ห้ามนำไป save กลับ
+ */
+@Target(ElementType.PARAMETER)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CurrentUser {
+}
@@ -2,11 +2,13 @@ package com.projectgo.barber_booking.controller;
 
 import com.projectgo.barber_booking.model.User;
 import com.projectgo.barber_booking.repository.UserRepository;
+import com.projectgo.barber_booking.service.AvatarStorage;
+import com.projectgo.barber_booking.service.UserCache;
 import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -16,7 +18,6 @@ import java.io.IOException;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.security.Principal;
 import java.util.*;
 
@@ -27,7 +28,13 @@ public class HomeController {
     private UserRepository userRepository;
 
     @Autowired
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordEncoder passwordEncoder;
+
+    @Autowired
+    private AvatarStorage avatarStorage;
+
+    @Autowired
+    private UserCache userCache;
 
     // --- [0] หน้า Admin (สำหรับ Thymeleaf view) ---
     // SecurityConfig จะอนุญาตเฉพาะ ROLE_ADMIN เข้าหน้านี้
@@ -99,14 +106,12 @@ public String showHomePage(Model model, Principal principal) {
 
     // --- [4] หน้า Profile ---
     @GetMapping("/profile")
-    public String userProfile(Model model, Principal principal, HttpServletRequest request) {
+    public String userProfile(Model model, Principal principal, @CurrentUser User user, HttpServletRequest request) {
         if (principal == null) {
             return "redirect:/login";
         }
 
-        String username = principal.getName();
-        Optional<User> userOpt = userRepository.findByUsername(username);
-        model.addAttribute("user", userOpt.orElseGet(User::new)); // กัน null
+        model.addAttribute("user", user != null ? user : new User()); // กัน null
 
         // ✅ รับ flash attribute (เช่น successMessage) จาก session → ส่งไป Thymeleaf
         String successMessage = (String) request.getSession().getAttribute("successMessage");
@@ -177,33 +182,26 @@ public String showHomePage(Model model, Principal principal) {
         String username = principal.getName();
         User user = userRepository.findByUsername(username).orElseThrow();
 
-        // 📁 เก็บไฟล์สำหรับ dev: classpath:/static/uploads/
-        // หมายเหตุ: เมื่อแพ็กเป็น JAR แนะนำย้ายไปโฟลเดอร์ภายนอกและทำ ResourceHandler ใน WebConfig
-        Path uploadDir = Paths.get("src/main/resources/static/uploads");
+        // 📁 เก็บนอก source tree แบบ content-addressed (ไฟล์ซ้ำเก็บครั้งเดียว) แล้วย่อรูปเบื้องหลัง
         try {
-            if (!Files.exists(uploadDir)) {
-                Files.createDirectories(uploadDir);
-            }
+            AvatarStorage.Stored stored = avatarStorage.store(file.getInputStream(), ext);
 
-            // ลบไฟล์เก่า (ถ้ามี)
+            // ลบไฟล์แบบเก่า (ถ้ามี) — ไฟล์ใน avatar storage อาจมีผู้ใช้อื่นอ้างถึง จึงไม่ลบ
             String oldUrl = user.getAvatarUrl();
             if (oldUrl != null && !oldUrl.isBlank() && oldUrl.startsWith("/uploads/")) {
-                Path oldFilePath = Paths.get("src/main/resources/static" + oldUrl);
-                Files.deleteIfExists(oldFilePath);
+                Path oldFilePath = Paths.get("src/main/resources/static" + oldUrl).normalize();
+                if (oldFilePath.startsWith(Paths.get("src/main/resources/static/uploads"))) {
+                    Files.deleteIfExists(oldFilePath);
+                }
             }
 
-            // ตั้งชื่อไฟล์ใหม่แบบสุ่ม
-            String filename = UUID.randomUUID() + "." + ext;
-            Path filePath = uploadDir.resolve(filename);
-            Files.copy(file.getInputStream(), filePath, StandardCopyOption.REPLACE_EXISTING);
-
-            // อัปเดต URL ใน DB (เสิร์ฟผ่าน /uploads/**)
-            String publicUrl = "/uploads/" + filename;
-            user.setAvatarUrl(publicUrl);
+            // อัปเดต URL ใน DB (เสิร์ฟผ่าน /avatars/**)
+            user.setAvatarUrl(stored.url());
             userRepository.save(user);
+            userCache.invalidate(username);
 
             resp.put("message", "อัปโหลดสำเร็จ");
-            resp.put("avatarUrl", publicUrl);
+            resp.put("avatarUrl", stored.url("medium"));
             return ResponseEntity.ok(resp);
 
         } catch (IOException e) {
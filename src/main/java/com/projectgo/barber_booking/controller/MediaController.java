@@ -0,0 +1,106 @@
+package com.projectgo.barber_booking.controller;
+
+import com.projectgo.barber_booking.service.AvatarStorage;
+import com.projectgo.barber_booking.service.MediaFileServer;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.Optional;
+
+/**
+ * เสิร์ฟไฟล์สื่อที่ผู้ใช้อัปโหลดผ่าน MediaFileServer (zero-copy, Range, ETag)
+ * - /avatars/{hash}.{ext}         : ต้นฉบับ
+ * - /avatars/{size}/{hash}.{ext}  : small / medium / large (ยังย่อไม่เสร็จ → ต้นฉบับ, cache สั้น)
+ * - /uploads/{name}               : รูปโปรไฟล์แบบเก่า (ชื่อขึ้นต้นด้วย UUID) ที่ยังไม่ได้ย้ายเข้า AvatarStorage
+ *                                   หาใน media.legacy-uploads-dir ก่อน แล้วค่อย classpath:/static/uploads/ (ตอนรันจาก JAR)
+ * ชื่อไฟล์เป็น content hash / UUID → cache แบบ immutable ได้
+ */
+@RestController
+public class MediaController {
+
+    private static final CacheControl IMMUTABLE = CacheControl.maxAge(Duration.ofDays(365)).cachePublic().immutable();
+    private static final CacheControl SHORT = CacheControl.maxAge(Duration.ofMinutes(1)).cachePublic();
+    private static final String LEGACY_CLASSPATH = "static/uploads/";
+
+    private final AvatarStorage storage;
+    private final MediaFileServer media;
+    private final Path legacyUploads;
+
+    public MediaController(AvatarStorage storage, MediaFileServer media,
+                           @Value("${media.legacy-uploads-dir:src/main/resources/static/uploads}") String legacyUploads) {
+        this.storage = storage;
+        this.media = media;
+        this.legacyUploads = Paths.get(legacyUploads).toAbsolutePath().normalize();
+    }
+
+    @GetMapping("/avatars/{name:.+}")
+    public void original(@PathVariable String name, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        serveAvatar(null, name, req, res);
+    }
+
+    @GetMapping("/avatars/{size}/{name:.+}")
+    public void sized(@PathVariable String size, @PathVariable String name,
+                      HttpServletRequest req, HttpServletResponse res) throws IOException {
+        serveAvatar(size, name, req, res);
+    }
+
+    @GetMapping("/uploads/{name:.+}")
+    public void legacy(@PathVariable String name, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        // ชื่อเก่าเป็น UUID หรือ UUID_ชื่อไฟล์เดิม (อาจมีภาษาไทย/ช่องว่าง) → กันแค่การออกนอกโฟลเดอร์
+        Path p = legacyUploads.resolve(name).normalize();
+        if (name.startsWith(".") || !legacyUploads.equals(p.getParent())) {
+            res.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        if (!media.serve(p, AvatarStorage.contentType(p), IMMUTABLE, req, res)
+                && !serveClasspath(name, AvatarStorage.contentType(p), req, res)) {
+            res.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    /** รูปเก่าที่ถูกแพ็กไปกับ JAR (ผ่านการตรวจชื่อแบบเดียวกับข้างบนมาแล้ว) — ส่งทั้งไฟล์ ไม่รองรับ Range */
+    private static boolean serveClasspath(String name, String contentType,
+                                          HttpServletRequest req, HttpServletResponse res) throws IOException {
+        ClassPathResource r = new ClassPathResource(LEGACY_CLASSPATH + name);
+        if (!r.isReadable()) return false;
+        res.setContentType(contentType);
+        res.setHeader(HttpHeaders.CACHE_CONTROL, IMMUTABLE.getHeaderValue());
+        res.setContentLengthLong(r.contentLength());
+        if ("HEAD".equalsIgnoreCase(req.getMethod())) return true;
+        try (InputStream in = r.getInputStream()) {
+            in.transferTo(res.getOutputStream());
+        }
+        return true;
+    }
+
+    private void serveAvatar(String size, String name, HttpServletRequest req, HttpServletResponse res) throws IOException {
+        Optional<Path> file = storage.resolve(size, name);
+        if (file.isEmpty()) {
+            res.sendError(HttpServletResponse.SC_NOT_FOUND);
+            return;
+        }
+        Path p = file.get();
+        // ขอรูปย่อแต่ได้ต้นฉบับ (ยังย่อไม่เสร็จ) → cache สั้น ๆ ให้มาขอใหม่ทีหลัง
+        boolean fallback = size != null && !isThumb(p, size);
+        if (!media.serve(p, AvatarStorage.contentType(p), fallback ? SHORT : IMMUTABLE, req, res)) {
+            res.sendError(HttpServletResponse.SC_NOT_FOUND);
+        }
+    }
+
+    private static boolean isThumb(Path p, String size) {
+        Path parent = p.getParent() == null ? null : p.getParent().getParent();
+        return parent != null && parent.getFileName().toString().equals(size);
+    }
+}
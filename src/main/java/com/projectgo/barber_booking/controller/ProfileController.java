@@ -2,12 +2,12 @@ package com.projectgo.barber_booking.controller;
 
 import com.projectgo.barber_booking.dto.PasswordChangeForm;
 import com.projectgo.barber_booking.dto.ProfileUpdateForm;
+import com.projectgo.barber_booking.model.User;
 import com.projectgo.barber_booking.service.UserService;
 
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.authentication.BadCredentialsException;
-import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.validation.BindingResult;
@@ -22,22 +22,24 @@ public class ProfileController {
   private final UserService userService;
 
   @GetMapping({"/edit", "/edit/"})
-  public String edit(Model model, Authentication auth){
-    Long id = userService.currentUserId(auth);
-    model.addAttribute("form", userService.toForm(id));
-    model.addAttribute("user", userService.getById(id)); // สำหรับวันที่สมัคร
+  public String edit(Model model, @CurrentUser User user){
+    if (user == null) return "redirect:/login";
+    model.addAttribute("form", userService.toForm(user));
+    model.addAttribute("user", user); // สำหรับวันที่สมัคร
     return "profile_edit";
   }
 
   @PostMapping({"/edit", "/edit/"})
   public String update(@Valid @ModelAttribute("form") ProfileUpdateForm form,
                        BindingResult br,
-                       Authentication auth,
+                       @CurrentUser User user,
+                       Model model,
                        RedirectAttributes ra){
+    if (user == null) return "redirect:/login";
+    model.addAttribute("user", user);
     if (br.hasErrors()) return "profile_edit";
-    Long id = userService.currentUserId(auth);
     try {
-      userService.updateProfile(id, form);
+      userService.updateProfile(user.getId(), form);
       ra.addFlashAttribute("ok","อัปเดตข้อมูลแล้ว");
       return "redirect:/profile";
     } catch (IllegalArgumentException e){
@@ -59,15 +61,15 @@ public class ProfileController {
   @PostMapping({"/password", "/password/"})
   public String changePassword(@Valid @ModelAttribute("form") PasswordChangeForm form,
                                BindingResult br,
-                               Authentication auth,
+                               @CurrentUser User user,
                                RedirectAttributes ra){
+    if (user == null) return "redirect:/login";
     if (!form.matches()){
       br.rejectValue("confirmPassword","mismatch","รหัสผ่านไม่ตรงกัน");
       return "profile_password";
     }
-    Long id = userService.currentUserId(auth);
     try{
-      userService.changePassword(id, form);
+      userService.changePassword(user.getId(), form);
       ra.addFlashAttribute("ok","เปลี่ยนรหัสผ่านเรียบร้อย");
       return "redirect:/profile";
     }catch (BadCredentialsException e){
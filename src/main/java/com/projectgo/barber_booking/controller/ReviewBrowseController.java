@@ -1,9 +1,10 @@
 package com.projectgo.barber_booking.controller;
 
-import com.projectgo.barber_booking.model.ServiceReview;
-import com.projectgo.barber_booking.repository.ServiceReviewRepository;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
+import com.projectgo.barber_booking.dto.ReviewCursor;
+import com.projectgo.barber_booking.dto.ReviewFeedDTO;
+import com.projectgo.barber_booking.service.BarberLeaderboard;
+import com.projectgo.barber_booking.service.RatingSummaryStore;
+import com.projectgo.barber_booking.service.ReviewService;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.Model;
 import org.springframework.web.bind.annotation.*;
@@ -14,70 +15,92 @@ import java.util.List;
 /**
  * หน้า “รีวิวรวม” และ “รายการรีวิวของบริการหนึ่ง ๆ”
  * - GET /reviews                   : รวมทุกบริการ (สรุป avg + count)
- * - GET /reviews/service/{service} : รายการรีวิวของบริการนั้น ๆ (แบ่งหน้า)
+ * - GET /reviews/service/{service} : รายการรีวิวของบริการนั้น ๆ (keyset ตาม cursor)
+ * - GET /reviews/barbers           : อันดับช่างตามคะแนนรีวิว 7/30/90 วัน
  *
- * ต้องมีเมธอดใน ServiceReviewRepository:
- *   Page<ServiceReview> findByServiceOrderByCreatedAtDesc(String, Pageable)
- *   AvgCountRow        avgAndCount(String)
- *   List<ServiceSummaryRow> avgByService()
+ * คะแนนเฉลี่ย/จำนวน/histogram อ่านจาก service_rating_summary (RatingSummaryStore)
+ * ส่วนรายการรีวิวใช้ ReviewService.feed (เรียง created_at, id — ไม่มี OFFSET / count(*))
  */
 @Controller
 public class ReviewBrowseController {
 
-    private final ServiceReviewRepository reviewRepo;
+    private final ReviewService reviewService;
+    private final RatingSummaryStore ratingSummaries;
+    private final BarberLeaderboard leaderboard;
 
-    public ReviewBrowseController(ServiceReviewRepository reviewRepo) {
-        this.reviewRepo = reviewRepo;
+    public ReviewBrowseController(ReviewService reviewService,
+                                  RatingSummaryStore ratingSummaries,
+                                  BarberLeaderboard leaderboard) {
+        this.reviewService = reviewService;
+        this.ratingSummaries = ratingSummaries;
+        this.leaderboard = leaderboard;
     }
 
     /** รีวิวรวมทุกบริการ (สรุปค่าเฉลี่ยและจำนวนรีวิว) */
     @GetMapping("/reviews")
     public String reviewsOverview(Model model) {
-        List<ServiceReviewRepository.ServiceSummaryRow> rows = reviewRepo.avgByService();
-
         List<ServiceSummary> summaries = new ArrayList<>();
-        for (ServiceReviewRepository.ServiceSummaryRow r : rows) {
-            String service = r.getService();
-            double avg = (r.getAvg() == null) ? 0.0 : r.getAvg();
-            long count = (r.getCnt() == null) ? 0L : r.getCnt();
-            summaries.add(new ServiceSummary(service, avg, count));
+        for (RatingSummaryStore.Summary r : ratingSummaries.all()) {
+            summaries.add(new ServiceSummary(r.service(), r.avg(), r.count()));
         }
 
         model.addAttribute("summaries", summaries);
         return "reviews"; // templates/reviews.html
     }
 
-    /** รายการรีวิวของบริการหนึ่ง ๆ (รองรับ page เริ่ม 1 หรือ 0 ก็ได้) */
+    /** รายการรีวิวของบริการหนึ่ง ๆ (cursor = nextCursor ของหน้าก่อน, ไม่ส่ง = หน้าแรก) */
     @GetMapping("/reviews/service/{service}")
     public String reviewsByService(@PathVariable("service") String service,
-                                   @RequestParam(defaultValue = "0") int page,
+                                   @RequestParam(required = false) String cursor,
                                    Model model) {
 
         int size = 8;
-        int pageIndex = (page > 0) ? page - 1 : 0; // ให้ 1-based ก็ใช้ได้
-
-        // ดึงรายการรีวิวแบบแบ่งหน้า
-        Page<ServiceReview> p =
-                reviewRepo.findByServiceOrderByCreatedAtDesc(service, PageRequest.of(pageIndex, size));
-
-        // ค่าเฉลี่ยและจำนวนรีวิวแบบ Projection (ไม่ต้องแคสต์ Object[])
-        ServiceReviewRepository.AvgCountRow ac = reviewRepo.avgAndCount(service);
-        double avg = (ac == null || ac.getAvg() == null) ? 0.0 : ac.getAvg();
-        long count = (ac == null || ac.getCnt() == null) ? 0L : ac.getCnt();
 
-        // เผื่อกรณี count = 0 แต่หน้ารีวิวมีข้อมูล (กันพลาดจาก DB function)
-        if (count == 0 && p.getTotalElements() > 0) {
-            count = p.getTotalElements();
+        // cursor เพี้ยน (เช่นลิงก์เก่า) → เริ่มหน้าแรกแทนการขึ้น error
+        ReviewCursor at;
+        try {
+            at = ReviewCursor.decode(cursor);
+        } catch (IllegalArgumentException ex) {
+            at = null;
         }
+        ReviewFeedDTO feed = reviewService.feed(service, at, size);
+
+        // ค่าเฉลี่ย/จำนวน/histogram จากตารางสรุป (1 แถว)
+        RatingSummaryStore.Summary summary = ratingSummaries.find(service);
 
         model.addAttribute("service", service);
-        model.addAttribute("avg", avg);
-        model.addAttribute("count", count);
-        model.addAttribute("page", p);
+        model.addAttribute("avg", summary.avg());
+        model.addAttribute("count", summary.count());
+        model.addAttribute("histogram", histogramRows(summary));
+        model.addAttribute("feed", feed);
+        model.addAttribute("firstPage", at == null);
 
         return "reviews_service"; // templates/reviews_service.html
     }
 
+    /** อันดับช่างตามคะแนนรีวิว (7/30/90 วัน) */
+    @GetMapping("/reviews/barbers")
+    public String barberLeaderboard(@RequestParam(defaultValue = "30") int days, Model model) {
+        int d = BarberLeaderboard.window(days);
+        model.addAttribute("days", d);
+        model.addAttribute("windows", BarberLeaderboard.WINDOWS);
+        model.addAttribute("entries", leaderboard.top(d, 1));
+        return "reviews_barbers"; // templates/reviews_barbers.html
+    }
+
+    /** แถว histogram เรียง 5 → 1 ดาว พร้อมเปอร์เซ็นต์สำหรับความกว้างแถบ */
+    private static List<StarRow> histogramRows(RatingSummaryStore.Summary s) {
+        List<StarRow> rows = new ArrayList<>(5);
+        for (int star = 5; star >= 1; star--) {
+            long n = s.histogram()[star - 1];
+            int pct = (s.count() == 0) ? 0 : (int) Math.round(n * 100.0 / s.count());
+            rows.add(new StarRow(star, n, pct));
+        }
+        return rows;
+    }
+
+    public record StarRow(int star, long count, int percent) {}
+
     /** DTO สำหรับหน้า overview */
     public static class ServiceSummary {
         private final String service;
@@ -1,14 +1,20 @@
 package com.projectgo.barber_booking.controller;
 
+import com.projectgo.barber_booking.dto.ReviewCursor;
+import com.projectgo.barber_booking.dto.ReviewFeedDTO;
 import com.projectgo.barber_booking.model.ServiceReview;
+import com.projectgo.barber_booking.service.BarberLeaderboard;
+import com.projectgo.barber_booking.service.RatingSummaryStore;
 import com.projectgo.barber_booking.service.ReviewService;
+import com.projectgo.barber_booking.service.ReviewVersions;
 import jakarta.validation.ConstraintViolationException;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.Max;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotNull;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
@@ -17,12 +23,13 @@ import org.springframework.validation.FieldError;
 import org.springframework.validation.annotation.Validated;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.net.URI;
+import java.time.Duration;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 @RestController
@@ -32,6 +39,14 @@ import java.util.Map;
 public class ReviewRestController {
 
     private final ReviewService service;
+    private final BarberLeaderboard leaderboard;
+    private final ReviewVersions versions;
+
+    @Value("${reviews.cache.max-age-seconds:60}")
+    private long cacheMaxAgeSeconds;
+
+    @Value("${reviews.cache.stale-while-revalidate-seconds:300}")
+    private long cacheStaleSeconds;
 
     /** Payload สำหรับสร้างรีวิว */
     public record CreateReq(
@@ -61,36 +76,68 @@ public class ReviewRestController {
         return ResponseEntity.created(location).body(Map.of("id", r.getId()));
     }
 
-    /** อ่านรายการรีวิวของบริการ (แบ่งหน้า) */
+    /**
+     * อ่านฟีดรีวิวของบริการ (keyset) — หน้าถัดไปส่ง cursor = nextCursor จากหน้าก่อน
+     * ETag ตามเวอร์ชันรีวิว ตอบ 304 ได้โดยไม่แตะ DB
+     */
     @GetMapping("/services/{name}/reviews")
-    public Map<String, Object> list(@PathVariable("name") String serviceName,
-                                    @RequestParam(defaultValue = "0") int page,
-                                    @RequestParam(defaultValue = "10") int size) {
-        int p = Math.max(page, 0);
+    public ResponseEntity<ReviewFeedDTO> list(@PathVariable("name") String serviceName,
+                                              @RequestParam(required = false) String cursor,
+                                              @RequestParam(defaultValue = "10") int size,
+                                              WebRequest request) {
         int s = Math.max(1, Math.min(size, 50)); // จำกัด size 1..50
+        ReviewCursor at = ReviewCursor.decode(cursor); // เพี้ยน → 400 ก่อนคิด ETag
 
-        Page<ServiceReview> result = service.listByService(serviceName, p, s);
+        String etag = versions.etag(serviceName, "feed-" + (at == null ? "0" : cursor.trim()) + "-" + s);
+        ResponseEntity<ReviewFeedDTO> notModified = notModified(serviceName, etag, request);
+        if (notModified != null) return notModified;
 
-        Map<String, Object> resp = new HashMap<>();
-        resp.put("content", result.getContent());
-        resp.put("page", result.getNumber());
-        resp.put("size", result.getSize());
-        resp.put("totalElements", result.getTotalElements());
-        resp.put("totalPages", result.getTotalPages());
-        return resp;
+        return cached(HttpStatus.OK, serviceName, etag).body(service.feed(serviceName, at, s));
     }
 
-    /** สรุปคะแนนเฉลี่ย + จำนวนรีวิวของบริการ */
+    /** สรุปคะแนนเฉลี่ย + จำนวนรีวิวของบริการ + histogram 1–5 ดาว */
     @GetMapping("/services/{name}/rating")
-    public Map<String, Object> rating(@PathVariable("name") String serviceName) {
-        double[] s = service.summary(serviceName); // [avg, total]
-        double avg = s[0];
-        long total = (long) s[1];
+    public ResponseEntity<Map<String, Object>> rating(@PathVariable("name") String serviceName,
+                                                      WebRequest request) {
+        String etag = versions.etag(serviceName, "rating");
+        ResponseEntity<Map<String, Object>> notModified = notModified(serviceName, etag, request);
+        if (notModified != null) return notModified;
+
+        RatingSummaryStore.Summary s = service.ratingSummary(serviceName);
+        long[] h = s.histogram();
+
+        Map<String, Long> histogram = new LinkedHashMap<>();
+        for (int star = 1; star <= 5; star++) {
+            histogram.put(String.valueOf(star), h[star - 1]);
+        }
+        return cached(HttpStatus.OK, serviceName, etag).body(Map.of("avgRating", s.avg(), "total", s.count(), "histogram", histogram));
+    }
+
+    /* ---- conditional GET ---- */
 
-        // ปัดทศนิยม 1 ตำแหน่งให้อ่านง่าย (เช่น 4.2)
-        double rounded = BigDecimal.valueOf(avg).setScale(1, RoundingMode.HALF_UP).doubleValue();
+    private <T> ResponseEntity<T> notModified(String serviceName, String etag, WebRequest request) {
+        long lastModified = versions.current(serviceName).lastModified().toEpochMilli();
+        if (request.checkNotModified(etag, lastModified)) {
+            return cached(HttpStatus.NOT_MODIFIED, serviceName, etag).build();
+        }
+        return null;
+    }
+
+    private ResponseEntity.BodyBuilder cached(HttpStatus status, String serviceName, String etag) {
+        return ResponseEntity.status(status)
+                .eTag(etag)
+                .lastModified(versions.current(serviceName).lastModified())
+                .cacheControl(CacheControl.maxAge(Duration.ofSeconds(cacheMaxAgeSeconds))
+                        .cachePublic()
+                        .staleWhileRevalidate(Duration.ofSeconds(cacheStaleSeconds)));
+    }
 
-        return Map.of("avgRating", rounded, "total", total);
+    /** อันดับช่างตามคะแนนรีวิวในช่วง days วันล่าสุด (7/30/90 ค่าอื่นใช้ 30) จากหน่วยความจำ */
+    @GetMapping("/barbers/leaderboard")
+    public Map<String, Object> leaderboard(@RequestParam(defaultValue = "30") int days,
+                                           @RequestParam(defaultValue = "1") int minReviews) {
+        int d = BarberLeaderboard.window(days); // กติกาเดียวกับหน้า /reviews/barbers
+        return Map.of("days", d, "barbers", leaderboard.top(d, Math.max(1, minReviews)));
     }
 
     /* ------------------- Error handlers (ให้ตอบกลับเป็น JSON สวยงาม) ------------------- */
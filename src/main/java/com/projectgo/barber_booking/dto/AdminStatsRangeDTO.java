@@ -0,0 +1,20 @@
+package com.projectgo.barber_booking.dto;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * สถิติการจองแบบช่วงวันที่ (ต่อวัน / ต่อช่าง / ต่อบริการ)
+ * - days: ครบทุกวันในช่วง (วันที่ไม่มีการจองเป็น 0) ใช้ AdminStatsDTO รูปเดิม
+ * - total: รวมทั้งช่วง (date = from)
+ */
+public record AdminStatsRangeDTO(LocalDate from,
+                                 LocalDate to,
+                                 AdminStatsDTO total,
+                                 List<AdminStatsDTO> days,
+                                 List<Breakdown> byBarber,
+                                 List<Breakdown> byService) {
+
+    /** ยอดแยกสถานะของช่าง/บริการหนึ่งราย */
+    public record Breakdown(String key, long total, long pending, long confirmed, long done, long canceled) {}
+}
@@ -0,0 +1,41 @@
+package com.projectgo.barber_booking.dto;
+
+import com.projectgo.barber_booking.model.Booking;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+/**
+ * ตำแหน่งของ keyset pagination บนลำดับ (date, time, id)
+ * ส่งให้ client เป็นสตริง base64url ทึบ ๆ — client ไม่ต้อง (และไม่ควร) แกะเอง
+ */
+public record BookingCursor(LocalDate date, LocalTime time, long id) {
+
+    public static BookingCursor of(Booking b) {
+        return new BookingCursor(b.getDate(), b.getTime(), b.getId());
+    }
+
+    public static BookingCursor of(BookingRowDTO r) {
+        return new BookingCursor(r.date(), r.time(), r.id());
+    }
+
+    public String encode() {
+        String raw = date + "|" + time + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** null/ว่าง → null (หน้าแรก), รูปแบบเพี้ยน → IllegalArgumentException (ตอบ 400) */
+    public static BookingCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 3) throw new IllegalArgumentException(raw);
+            return new BookingCursor(LocalDate.parse(parts[0]), LocalTime.parse(parts[1]), Long.parseLong(parts[2]));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("cursor ไม่ถูกต้อง");
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.projectgo.barber_booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.util.List;
+
+/**
+ * หน้ารายการจองสำหรับแดชบอร์ด
+ * nextCursor / prevCursor เป็น null เมื่อไม่มีหน้าถัดไป / ก่อนหน้า
+ * total จะมีค่าเฉพาะเมื่อขอ withCount=true (ไม่ยิง count(*) ถ้าไม่จำเป็น)
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record BookingPageDTO(List<BookingRowDTO> items, int size, String nextCursor, String prevCursor, Long total) {
+}
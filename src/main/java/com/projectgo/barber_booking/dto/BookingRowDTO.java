@@ -0,0 +1,12 @@
+package com.projectgo.barber_booking.dto;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+/**
+ * แถวการจองสำหรับรายการฝั่งแอดมิน — อ่านตรงจาก ResultSet ไม่ผ่าน entity / persistence context
+ * ชื่อ field ตรงกับ JSON ของ Booking เดิม หน้าแดชบอร์ดจึงใช้ได้ทันที
+ */
+public record BookingRowDTO(long id, String username, String service, LocalDate date, LocalTime time,
+                            String barber, String note, String status) {
+}
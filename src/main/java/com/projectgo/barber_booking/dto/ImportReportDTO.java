@@ -0,0 +1,13 @@
+package com.projectgo.barber_booking.dto;
+
+import java.util.List;
+
+/**
+ * ผลการนำเข้าการจองจาก CSV
+ * rows = จำนวนแถวข้อมูลที่อ่าน (ไม่นับ header), errors เก็บไม่เกิน admin.import.max-errors รายการ
+ * line คือเลขบรรทัดในไฟล์ (header = บรรทัด 1)
+ */
+public record ImportReportDTO(long rows, long inserted, long failed, List<RowError> errors, boolean errorsTruncated) {
+
+    public record RowError(long line, String message) {}
+}
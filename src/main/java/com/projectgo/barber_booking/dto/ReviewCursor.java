@@ -0,0 +1,36 @@
+package com.projectgo.barber_booking.dto;
+
+import com.projectgo.barber_booking.model.ServiceReview;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+/**
+ * ตำแหน่งของ keyset pagination บนฟีดรีวิว เรียง (created_at, id) ใหม่สุดก่อน
+ * ส่งให้ client เป็นสตริง base64url ทึบ ๆ เหมือน BookingCursor
+ */
+public record ReviewCursor(Instant createdAt, long id) {
+
+    public static ReviewCursor of(ServiceReview r) {
+        return new ReviewCursor(r.getCreatedAt(), r.getId());
+    }
+
+    public String encode() {
+        String raw = createdAt + "|" + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** null/ว่าง → null (หน้าแรก), รูปแบบเพี้ยน → IllegalArgumentException (ตอบ 400) */
+    public static ReviewCursor decode(String cursor) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(cursor.trim()), StandardCharsets.UTF_8);
+            String[] parts = raw.split("\\|");
+            if (parts.length != 2) throw new IllegalArgumentException(raw);
+            return new ReviewCursor(Instant.parse(parts[0]), Long.parseLong(parts[1]));
+        } catch (RuntimeException ex) {
+            throw new IllegalArgumentException("cursor ไม่ถูกต้อง");
+        }
+    }
+}
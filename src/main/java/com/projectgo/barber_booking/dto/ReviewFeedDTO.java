@@ -0,0 +1,14 @@
+package com.projectgo.barber_booking.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.projectgo.barber_booking.model.ServiceReview;
+
+import java.util.List;
+
+/**
+ * หน้าหนึ่งของฟีดรีวิวบริการ (keyset)
+ * nextCursor เป็น null เมื่อเป็นหน้าสุดท้าย, total มาจาก service_rating_summary (ไม่ยิง count(*))
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ReviewFeedDTO(List<ServiceReview> content, int size, String nextCursor, long totalElements) {
+}
@@ -0,0 +1,23 @@
+package com.projectgo.barber_booking.exception;
+
+import java.sql.SQLTransientConnectionException;
+
+/**
+ * DbBulkhead รอคิวใช้ฐานข้อมูลเกินเวลาที่กำหนด → RestExceptionHandler ตอบ 503
+ * เป็น SQLException เพื่อให้ JDBC / Hibernate / Spring ห่อส่งต่อขึ้นมาเหมือน error ตอนขอ connection ปกติ
+ */
+public class DbBusyException extends SQLTransientConnectionException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public DbBusyException(String reason, long retryAfterSeconds) {
+        super(reason);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,23 @@
+package com.projectgo.barber_booking.exception;
+
+import org.springframework.security.core.AuthenticationException;
+
+/**
+ * ปฏิเสธการล็อกอินก่อนตรวจรหัสผ่าน (คิว hash เต็ม หรือผิดบ่อยเกินไป) → SecurityConfig ตอบ 429
+ * เป็น AuthenticationException เพื่อให้ผ่าน failure handler ของ form login ตามปกติ
+ */
+public class LoginThrottledException extends AuthenticationException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public LoginThrottledException(String msg, long retryAfterSeconds) {
+        super(msg);
+        this.retryAfterSeconds = Math.max(1, retryAfterSeconds);
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
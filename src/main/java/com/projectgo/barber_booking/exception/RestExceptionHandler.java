@@ -1,9 +1,13 @@
 package com.projectgo.barber_booking.exception;
 
+import com.projectgo.barber_booking.service.DbBulkhead;
+import org.springframework.dao.DataAccessResourceFailureException;
 import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -51,6 +55,28 @@ public class RestExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
     }
 
+    // ✅ ช่องเวลาถูกถือ hold / ไม่มีช่างว่าง: ตอบ 409 เหมือนจองชน
+    @ExceptionHandler(SlotConflictException.class)
+    public ResponseEntity<Map<String, Object>> handleSlotConflict(SlotConflictException ex) {
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "CONFLICT");
+        body.put("message", ex.getMessage());
+        return ResponseEntity.status(HttpStatus.CONFLICT).body(body);
+    }
+
+    // ✅ รอคิวฐานข้อมูลเกินกำหนด (DbBulkhead): ตอบ 503 + Retry-After แทนการค้างรอ connection
+    @ExceptionHandler({CannotCreateTransactionException.class, DataAccessResourceFailureException.class})
+    public ResponseEntity<Map<String, Object>> handleDbUnavailable(RuntimeException ex) {
+        DbBusyException busy = DbBulkhead.rejection(ex);
+        if (busy == null) return handleRuntime(ex);
+        Map<String, Object> body = new HashMap<>();
+        body.put("error", "SERVICE_UNAVAILABLE");
+        body.put("message", "ระบบมีผู้ใช้งานจำนวนมาก กรุณาลองใหม่อีกครั้ง");
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(busy.getRetryAfterSeconds()))
+                .body(body);
+    }
+
     @ExceptionHandler(RuntimeException.class)
     public ResponseEntity<Map<String, Object>> handleRuntime(RuntimeException ex) {
         Map<String, Object> body = new HashMap<>();
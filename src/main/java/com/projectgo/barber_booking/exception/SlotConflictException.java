@@ -0,0 +1,14 @@
+package com.projectgo.barber_booking.exception;
+
+/**
+ * ช่วงเวลาที่ขอจองใช้ไม่ได้ (มีคนถือ hold อยู่ / ไม่มีช่างว่าง) → RestExceptionHandler ตอบ 409
+ * เหมือนกรณีจองชน unique index
+ */
+public class SlotConflictException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public SlotConflictException(String message) {
+        super(message);
+    }
+}
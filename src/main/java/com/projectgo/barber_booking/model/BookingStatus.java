@@ -0,0 +1,21 @@
+package com.projectgo.barber_booking.model;
+
+import java.util.Set;
+
+/** ค่าของ bookings.status — ต้องตรงกับ ck_bookings_status (V20250812_02__status_check.sql) */
+public final class BookingStatus {
+
+    public static final String PENDING = "รอดำเนินการ";
+    public static final String CONFIRMED = "ยืนยันแล้ว";
+    public static final String CANCELED = "ยกเลิก";
+    public static final String DONE = "เสร็จสิ้น";
+
+    /** ทุกค่าที่ constraint ยอมรับ */
+    public static final Set<String> ALL = Set.of(PENDING, CONFIRMED, CANCELED, DONE);
+
+    private BookingStatus() {}
+
+    public static boolean isValid(String status) {
+        return status != null && ALL.contains(status);
+    }
+}
@@ -1,9 +1,12 @@
 package com.projectgo.barber_booking.repository;
 
 import com.projectgo.barber_booking.model.Booking;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.time.LocalDate;
 import java.time.LocalTime;
@@ -17,8 +20,60 @@ public interface BookingRepository extends JpaRepository<Booking, Long>, JpaSpec
     long countByStatusAndDate(String status, LocalDate date);
     boolean existsByBarberAndDateAndTime(String barber, LocalDate d, LocalTime t);
 
+    /**
+     * หน้า "รายการจองของฉัน": ใหม่สุดก่อน พร้อมธง reviewed จาก left join service_reviews
+     * (1 query ต่อหน้า + count ตาม username — ใช้ index ix_bookings_username_date)
+     */
+    @Query(value = """
+            select b.id as id, b.service as service, b.date as date, b.time as time,
+                   b.barber as barber, b.note as note, b.status as status,
+                   (case when r.id is null then false else true end) as reviewed
+            from Booking b
+            left join ServiceReview r on r.bookingId = b.id
+            where b.username = :username
+            order by b.date desc, b.time desc, b.id desc
+            """,
+            countQuery = "select count(b) from Booking b where b.username = :username")
+    Page<UserBookingRow> findUserBookings(@Param("username") String username, Pageable pageable);
+
     @Query("select distinct b.service from Booking b order by b.service asc")
     List<String> distinctServices();
 
+    /** เวลาที่ถูกจองแล้วของช่างในวันนั้น (ใช้โหลด SlotAvailabilityIndex) */
+    @Query("select b.time from Booking b where b.barber = :barber and b.date = :date")
+    List<LocalTime> findTimesByBarberAndDate(@Param("barber") String barber, @Param("date") LocalDate date);
+
+    /**
+     * ค้นหาอิสระแบบจัดอันดับ (ต้องมี pg_trgm — ดู BookingSearchService)
+     * q และ like ต้องเป็นตัวพิมพ์เล็กแล้ว, id = -1 ถ้าคำค้นไม่ใช่ตัวเลข
+     */
+    @Query(value = """
+            select b.* from bookings b
+            where b.id = :id
+               or lower(b.username) like :like or lower(b.service) like :like
+               or lower(b.barber) like :like or lower(b.note) like :like
+               or :q <% lower(b.username) or :q <% lower(b.service) or :q <% lower(b.barber)
+            order by (b.id = :id) desc,
+                     greatest(word_similarity(:q, lower(b.username)),
+                              word_similarity(:q, lower(b.service)),
+                              word_similarity(:q, lower(b.barber)),
+                              coalesce(word_similarity(:q, lower(b.note)), 0)) desc,
+                     b.date desc, b.time desc, b.id desc
+            limit :limit
+            """, nativeQuery = true)
+    List<Booking> searchRanked(@Param("q") String q, @Param("like") String like,
+                               @Param("id") long id, @Param("limit") int limit);
+
+    /* ===== Projections ===== */
 
+    interface UserBookingRow {
+        Long getId();
+        String getService();
+        LocalDate getDate();
+        LocalTime getTime();
+        String getBarber();
+        String getNote();
+        String getStatus();
+        boolean isReviewed();
+    }
 }
@@ -1,12 +1,13 @@
 package com.projectgo.barber_booking.repository;
 
 import com.projectgo.barber_booking.model.ServiceReview;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.Collection;
 import java.util.List;
 
@@ -22,14 +23,30 @@ public interface ServiceReviewRepository extends JpaRepository<ServiceReview, Lo
     /** มีรีวิวของ booking นี้จากผู้ใช้นี้หรือยัง (ไว้เช็ค “ยังไม่เคยรีวิว”) */
     boolean existsByBookingIdAndUsername(Long bookingId, String username);
 
-    /** ดึงรายการรีวิวของบริการ ตามเวลา (ใหม่สุดก่อน) */
+    /**
+     * ฟีดรีวิวของบริการ หน้าแรก (ใหม่สุดก่อน) — คืน Slice จึงไม่มี count(*) ตามมา
+     * ใช้ index ix_reviews_service_created_id
+     */
     @Query("""
            select r
            from ServiceReview r
            where r.service = :service
-           order by r.createdAt desc
+           order by r.createdAt desc, r.id desc
            """)
-    Page<ServiceReview> findByServiceOrderByCreatedAtDesc(@Param("service") String service, Pageable pageable);
+    Slice<ServiceReview> findFeed(@Param("service") String service, Pageable pageable);
+
+    /** ฟีดรีวิวหน้าถัดไป: รายการที่เก่ากว่า (createdAt, id) ของตัวสุดท้ายในหน้าก่อน (keyset, ไม่ใช้ OFFSET) */
+    @Query("""
+           select r
+           from ServiceReview r
+           where r.service = :service
+             and (r.createdAt < :createdAt or (r.createdAt = :createdAt and r.id < :id))
+           order by r.createdAt desc, r.id desc
+           """)
+    Slice<ServiceReview> findFeedAfter(@Param("service") String service,
+                                       @Param("createdAt") Instant createdAt,
+                                       @Param("id") Long id,
+                                       Pageable pageable);
 
     /** สรุปค่าเฉลี่ยเรตติ้งและจำนวนรีวิวของบริการ (Projection: avg, cnt) */
     @Query("""
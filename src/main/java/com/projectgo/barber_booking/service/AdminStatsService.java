@@ -0,0 +1,134 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.dto.AdminStatsDTO;
+import com.projectgo.barber_booking.dto.AdminStatsRangeDTO;
+import com.projectgo.barber_booking.dto.AdminStatsRangeDTO.Breakdown;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * สถิติแดชบอร์ดจาก query เดียว (GROUPING SETS) ไม่ว่าช่วงจะยาวกี่วัน
+ * อ่านจาก read model booking_daily_stats (ดู BookingRollup) — ต้นทุนขึ้นกับจำนวนวัน ไม่ใช่จำนวนการจองสะสม
+ * - ช่วงยาวสุด admin.stats.max-days วัน
+ * - query มี timeout (admin.stats.query-timeout-seconds) และ log เตือนเมื่อเกิน budget
+ */
+@Service
+public class AdminStatsService {
+
+    private static final Logger log = LoggerFactory.getLogger(AdminStatsService.class);
+
+    // g = 0 ต่อวัน, 1 ต่อช่าง, 2 ต่อบริการ (grouping() คืน bitmask ของคอลัมน์ที่ "ไม่ได้" group)
+    private static final String RANGE_SQL = """
+            select case when grouping(date) = 0 then 0 when grouping(barber) = 0 then 1 else 2 end as g,
+                   date, barber, service, status, sum(cnt) as n
+            from booking_daily_stats
+            where date between ? and ?
+            group by grouping sets ((date, status), (barber, status), (service, status))
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final int maxDays;
+    private final long budgetMillis;
+
+    public AdminStatsService(DataSource dataSource,
+                             @Value("${admin.stats.max-days:92}") int maxDays,
+                             @Value("${admin.stats.query-timeout-seconds:5}") int queryTimeoutSeconds,
+                             @Value("${admin.stats.budget-ms:300}") long budgetMillis) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        this.jdbc.setQueryTimeout(queryTimeoutSeconds);
+        this.maxDays = maxDays;
+        this.budgetMillis = budgetMillis;
+    }
+
+    /** ยอดแยกสถานะ (ใช้สะสมทั้งต่อวัน/ช่าง/บริการ) */
+    private static final class Counts {
+        long pending, confirmed, done, canceled, other;
+
+        void add(String status, long n) {
+            switch (status == null ? "" : status) {
+                case "รอดำเนินการ" -> pending += n;
+                case "ยืนยันแล้ว" -> confirmed += n;
+                case "เสร็จสิ้น" -> done += n;
+                case "ยกเลิก" -> canceled += n;
+                default -> other += n;
+            }
+        }
+
+        long total() { return pending + confirmed + done + canceled + other; }
+
+        AdminStatsDTO toDay(LocalDate d) {
+            return new AdminStatsDTO(d, total(), pending, confirmed, done, canceled);
+        }
+
+        Breakdown toBreakdown(String key) {
+            return new Breakdown(key, total(), pending, confirmed, done, canceled);
+        }
+    }
+
+    public AdminStatsDTO day(LocalDate d) {
+        return range(d, d).days().get(0);
+    }
+
+    public AdminStatsRangeDTO range(LocalDate from, LocalDate to) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("วันที่สิ้นสุดต้องไม่ก่อนวันที่เริ่ม");
+        }
+        long span = ChronoUnit.DAYS.between(from, to) + 1;
+        if (span > maxDays) {
+            throw new IllegalArgumentException("ช่วงวันที่ยาวเกิน " + maxDays + " วัน");
+        }
+
+        Map<LocalDate, Counts> byDay = new TreeMap<>();
+        for (LocalDate d = from; !d.isAfter(to); d = d.plusDays(1)) byDay.put(d, new Counts());
+        Map<String, Counts> byBarber = new HashMap<>();
+        Map<String, Counts> byService = new HashMap<>();
+        Counts total = new Counts();
+
+        long t0 = System.nanoTime();
+        jdbc.query(RANGE_SQL, rs -> {
+            int g = rs.getInt("g");
+            String status = rs.getString("status");
+            long n = rs.getLong("n");
+            switch (g) {
+                case 0 -> {
+                    byDay.get(rs.getObject("date", LocalDate.class)).add(status, n);
+                    total.add(status, n); // ทุกแถวอยู่ในชุด (date, status) ครั้งเดียวพอดี
+                }
+                case 1 -> byBarber.computeIfAbsent(rs.getString("barber"), k -> new Counts()).add(status, n);
+                default -> byService.computeIfAbsent(rs.getString("service"), k -> new Counts()).add(status, n);
+            }
+        }, from, to);
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        if (ms > budgetMillis) {
+            log.warn("admin stats {}..{} ({} วัน) ใช้เวลา {} ms เกิน budget {} ms", from, to, span, ms, budgetMillis);
+        }
+
+        List<AdminStatsDTO> days = new ArrayList<>(byDay.size());
+        byDay.forEach((d, c) -> days.add(c.toDay(d)));
+
+        return new AdminStatsRangeDTO(from, to, total.toDay(from), days,
+                breakdowns(byBarber), breakdowns(byService));
+    }
+
+    /** เรียงยอดมากไปน้อย */
+    private static List<Breakdown> breakdowns(Map<String, Counts> m) {
+        List<Breakdown> list = new ArrayList<>(m.size());
+        m.forEach((k, c) -> list.add(c.toBreakdown(k)));
+        list.sort(Comparator.comparingLong(Breakdown::total).reversed().thenComparing(Breakdown::key,
+                Comparator.nullsLast(Comparator.naturalOrder())));
+        return list;
+    }
+}
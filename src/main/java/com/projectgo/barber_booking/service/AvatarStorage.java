@@ -0,0 +1,275 @@
+package com.projectgo.barber_booking.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.stream.ImageInputStream;
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * ที่เก็บรูปโปรไฟล์นอก source tree (avatar.storage.root) แบบ content-addressed
+ * - ชื่อไฟล์ = SHA-256 ของเนื้อไฟล์ → อัปโหลดรูปเดิมซ้ำกี่ครั้งก็เก็บครั้งเดียว
+ * - ย่อรูปเป็น small / medium / large (JPEG สี่เหลี่ยมจัตุรัส) บน thread pool เล็ก ๆ นอก request thread
+ *   ถ้ายังย่อไม่เสร็จ (หรือ ImageIO อ่านชนิดนั้นไม่ได้ เช่น webp) จะเสิร์ฟตัวต้นฉบับแทน
+ *
+ * โครงสร้างไฟล์: {root}/original/ab/{hash}.{ext}, {root}/{size}/ab/{hash}.jpg
+ * URL สาธารณะ: /avatars/{hash}.{ext} (ต้นฉบับ) และ /avatars/{size}/{hash}.{ext}
+ */
+@Service
+public class AvatarStorage {
+
+    private static final Logger log = LoggerFactory.getLogger(AvatarStorage.class);
+
+    public static final String URL_PREFIX = "/avatars/";
+
+    /** ขนาดด้านของรูปย่อ (px) */
+    public static final Map<String, Integer> SIZES = Map.of("small", 64, "medium", 128, "large", 256);
+
+    private static final Pattern NAME = Pattern.compile("[0-9a-f]{64}\\.(jpg|png|gif|webp)");
+
+    private final Path root;
+    private final ThreadPoolExecutor thumbnailer;
+    private final MediaFileServer media;
+
+    public AvatarStorage(MediaFileServer media,
+                         @Value("${avatar.storage.root:${user.home}/.barber_booking/avatars}") String root,
+                         @Value("${avatar.thumbnail.threads:1}") int threads,
+                         @Value("${avatar.thumbnail.queue:100}") int queue) throws IOException {
+        this.media = media;
+        this.root = Paths.get(root).toAbsolutePath().normalize();
+        Files.createDirectories(this.root.resolve("original"));
+        int n = Math.max(1, threads);
+        this.thumbnailer = new ThreadPoolExecutor(n, n, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queue)), r -> {
+                    Thread t = new Thread(r, "avatar-thumbnailer");
+                    t.setDaemon(true);
+                    t.setPriority(Thread.NORM_PRIORITY - 1);
+                    return t;
+                });
+        log.info("avatar storage: {}", this.root);
+    }
+
+    public record Stored(String name, boolean duplicate) {
+        public String url() { return URL_PREFIX + name; }
+        public String url(String size) { return URL_PREFIX + size + "/" + name; }
+    }
+
+    /**
+     * เก็บไฟล์ (ชนิดตาม ext ที่ตรวจแล้วโดยผู้เรียก) แล้วสั่งย่อรูปเบื้องหลัง
+     * ไฟล์ที่มี hash เดิมอยู่แล้วจะไม่ถูกเขียนซ้ำ
+     */
+    public Stored store(InputStream in, String ext) throws IOException {
+        String e = normalizeExt(ext);
+        Path tmp = Files.createTempFile(root, "upload-", ".part");
+        String hash;
+        try {
+            MessageDigest sha = sha256();
+            try (DigestInputStream din = new DigestInputStream(in, sha)) {
+                Files.copy(din, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            hash = HexFormat.of().formatHex(sha.digest());
+            String name = hash + "." + e;
+            Path target = originalPath(name);
+            if (Files.exists(target)) {
+                return new Stored(name, true);
+            }
+            Files.createDirectories(target.getParent());
+            try {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (IOException raced) {
+                if (!Files.exists(target)) throw raced; // อีก request เขียนไฟล์เดียวกันเสร็จก่อน = ใช้ได้เลย
+            }
+            media.invalidate(target);
+            scheduleThumbnails(name);
+            return new Stored(name, false);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * ไฟล์ที่จะเสิร์ฟสำหรับ size (null = ต้นฉบับ) — รูปย่อยังไม่มีจะคืนต้นฉบับและสั่งย่อ
+     * เช็คว่ามีไฟล์ผ่าน metadata cache ของ MediaFileServer (ไม่ stat ดิสก์ทุก request)
+     */
+    public Optional<Path> resolve(String size, String name) {
+        if (name == null || !NAME.matcher(name).matches()) return Optional.empty();
+        if (size != null && !SIZES.containsKey(size)) return Optional.empty();
+        if (size != null) {
+            Path thumb = thumbPath(size, name);
+            if (media.exists(thumb)) return Optional.of(thumb);
+        }
+        Path original = originalPath(name);
+        if (!media.exists(original)) return Optional.empty();
+        if (size == null) return Optional.of(original);
+        scheduleThumbnails(name);
+        return Optional.of(original);
+    }
+
+    /**
+     * URL ของรูปขนาด size จากค่า avatarUrl ที่เก็บใน users (ใช้ในเทมเพลต: ${@avatarStorage.url(u.avatarUrl, 'medium')})
+     * URL แบบเก่า (/uploads/...) คืนตามเดิม, ว่าง = null
+     */
+    public String url(String avatarUrl, String size) {
+        if (avatarUrl == null || avatarUrl.isBlank()) return null;
+        if (!avatarUrl.startsWith(URL_PREFIX) || !SIZES.containsKey(size)) return avatarUrl;
+        String name = avatarUrl.substring(URL_PREFIX.length());
+        return NAME.matcher(name).matches() ? URL_PREFIX + size + "/" + name : avatarUrl;
+    }
+
+    /** ชนิดเนื้อหาของไฟล์ที่ resolve() คืนมา */
+    public static String contentType(Path p) {
+        String f = p.getFileName().toString().toLowerCase(Locale.ROOT);
+        if (f.endsWith(".png")) return "image/png";
+        if (f.endsWith(".gif")) return "image/gif";
+        if (f.endsWith(".webp")) return "image/webp";
+        return "image/jpeg";
+    }
+
+    /* ---------------- thumbnails ---------------- */
+
+    private void scheduleThumbnails(String name) {
+        try {
+            thumbnailer.execute(() -> generateThumbnails(name));
+        } catch (RejectedExecutionException busy) {
+            // คิวเต็ม → ไว้ย่อรอบหน้าที่มีคนขอรูปนี้
+            log.debug("thumbnail queue full, skip {}", name);
+        }
+    }
+
+    private void generateThumbnails(String name) {
+        Path original = originalPath(name);
+        try {
+            boolean allPresent = SIZES.keySet().stream().allMatch(s -> Files.isRegularFile(thumbPath(s, name)));
+            if (allPresent) return;
+
+            int largest = SIZES.values().stream().max(Integer::compare).orElse(256);
+            BufferedImage src = readSubsampled(original, largest);
+            if (src == null) {
+                log.debug("ImageIO อ่าน {} ไม่ได้ → ใช้ต้นฉบับ", name);
+                return;
+            }
+            for (Map.Entry<String, Integer> e : SIZES.entrySet()) {
+                Path out = thumbPath(e.getKey(), name);
+                if (Files.isRegularFile(out)) continue;
+                writeJpeg(squareThumb(src, e.getValue()), out);
+                media.invalidate(out); // ลบผล "ไม่พบ" ที่ cache ไว้ → request ถัดไปได้รูปย่อทันที
+            }
+        } catch (Exception ex) {
+            log.warn("สร้างรูปย่อ {} ไม่สำเร็จ: {}", name, ex.toString());
+        }
+    }
+
+    /** อ่านแบบ subsample ตั้งแต่ตอน decode เพื่อไม่ต้องถือรูปเต็มความละเอียดไว้ใน heap */
+    private static BufferedImage readSubsampled(Path file, int target) throws IOException {
+        try (ImageInputStream iis = ImageIO.createImageInputStream(file.toFile())) {
+            if (iis == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(iis);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(iis, true, true);
+                int w = reader.getWidth(0), h = reader.getHeight(0);
+                int step = Math.max(1, Math.min(w, h) / (target * 2));
+                ImageReadParam param = reader.getDefaultReadParam();
+                param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** crop กลางภาพเป็นจัตุรัสแล้วย่อเป็น size×size (พื้นขาวแทนส่วนโปร่งใส) */
+    private static BufferedImage squareThumb(BufferedImage src, int size) {
+        int side = Math.min(src.getWidth(), src.getHeight());
+        int x = (src.getWidth() - side) / 2, y = (src.getHeight() - side) / 2;
+        BufferedImage out = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = out.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, size, size);
+            g.drawImage(src, 0, 0, size, size, x, y, x + side, y + side, null);
+        } finally {
+            g.dispose();
+        }
+        return out;
+    }
+
+    private static void writeJpeg(BufferedImage img, Path out) throws IOException {
+        Files.createDirectories(out.getParent());
+        Path tmp = Files.createTempFile(out.getParent(), "thumb-", ".part");
+        try {
+            try (OutputStream os = Files.newOutputStream(tmp)) {
+                ImageIO.write(img, "jpg", os);
+            }
+            Files.move(tmp, out, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /* ---------------- paths ---------------- */
+
+    private Path originalPath(String name) {
+        return root.resolve("original").resolve(name.substring(0, 2)).resolve(name);
+    }
+
+    /** รูปย่อเป็น JPEG เสมอ แต่ใช้ชื่อเดียวกับต้นฉบับเพื่อให้ URL คงที่ */
+    private Path thumbPath(String size, String name) {
+        String base = name.substring(0, name.indexOf('.'));
+        return root.resolve(size).resolve(name.substring(0, 2)).resolve(base + ".jpg");
+    }
+
+    private static String normalizeExt(String ext) {
+        String e = ext == null ? "" : ext.toLowerCase(Locale.ROOT);
+        return switch (e) {
+            case "jpeg", "jpg" -> "jpg";
+            case "png", "gif", "webp" -> e;
+            default -> throw new IllegalArgumentException("unsupported image type: " + ext);
+        };
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        thumbnailer.shutdown();
+    }
+}
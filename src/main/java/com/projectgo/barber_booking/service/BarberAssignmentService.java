@@ -0,0 +1,94 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.service.SlotAvailabilityIndex.Slot;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * เลือกช่างให้อัตโนมัติเมื่อลูกค้าเลือก "ไม่เลือกช่าง"
+ * - คัดเฉพาะช่างที่ว่างในช่องนั้น (SlotAvailabilityIndex) และไม่มีคนอื่นถือ hold อยู่
+ * - เรียงจากภาระงานของวันนั้นน้อยสุด (นับจาก bitmap ของดัชนี ไม่ต้องถาม DB)
+ * - ถ้าภาระเท่ากัน ใช้ cursor แบบ round-robin (AtomicInteger) แทน global lock
+ * - "จับจอง" ช่างที่เลือกด้วย slot hold เพื่อให้คำขอพร้อมกันไม่ได้ช่างคนเดียวกัน
+ */
+@Service
+public class BarberAssignmentService {
+
+    /** ค่าที่หน้า select_time ส่งมาเมื่อลูกค้าไม่ระบุช่าง */
+    public static final String NO_PREFERENCE = "ไม่เลือกช่าง";
+
+    private final SlotAvailabilityIndex slotIndex;
+    private final SlotHoldRegistry slotHolds;
+    private final List<String> barbers;
+    private final AtomicInteger tieCursor = new AtomicInteger();
+
+    public BarberAssignmentService(SlotAvailabilityIndex slotIndex,
+                                   SlotHoldRegistry slotHolds,
+                                   @Value("${booking.barbers:ช่างเอ,ช่างบี,ช่างซี}") String barbers) {
+        this.slotIndex = slotIndex;
+        this.slotHolds = slotHolds;
+        this.barbers = Arrays.stream(barbers.split(","))
+                .map(String::trim)
+                .filter(s -> !s.isEmpty())
+                .toList();
+    }
+
+    public static boolean isNoPreference(String barber) {
+        return barber == null || barber.isBlank() || NO_PREFERENCE.equals(barber.trim());
+    }
+
+    /**
+     * เลือกช่างที่ว่างและภาระน้อยสุด แล้วถือ hold ช่องนั้นในนามของ holder
+     * คืน empty ถ้าไม่มีช่างว่างเลย (ผู้เรียกต้อง release hold เองหลังบันทึกเสร็จ)
+     */
+    public Optional<String> assign(LocalDate date, LocalTime time, String holder) {
+        for (String barber : rankCandidates(date, time, holder)) {
+            if (slotHolds.acquire(new Slot(barber, date, time), holder).isPresent()) {
+                return Optional.of(barber);
+            }
+        }
+        return Optional.empty();
+    }
+
+    /** ช่องเวลาที่มีช่างอย่างน้อย 1 คนว่าง (ใช้แสดงผลเมื่อเลือก "ไม่เลือกช่าง") */
+    public List<LocalTime> freeSlotsAnyBarber(LocalDate date) {
+        TreeSet<LocalTime> union = new TreeSet<>();
+        for (String barber : barbers) {
+            union.addAll(slotIndex.freeSlots(barber, date));
+        }
+        return new ArrayList<>(union);
+    }
+
+    public List<String> barbers() { return barbers; }
+
+    /* ---------------- internals ---------------- */
+
+    private List<String> rankCandidates(LocalDate date, LocalTime time, String holder) {
+        int n = barbers.size();
+        if (n == 0) return List.of();
+        int offset = Math.floorMod(tieCursor.getAndIncrement(), n);
+
+        List<Candidate> free = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            String barber = barbers.get(i);
+            if (slotIndex.isTaken(barber, date, time)) continue;
+            if (slotHolds.isHeldByOther(new Slot(barber, date, time), holder)) continue;
+            int tie = Math.floorMod(i - offset, n);
+            free.add(new Candidate(barber, slotIndex.bookedCount(barber, date), tie));
+        }
+        free.sort(Comparator.comparingInt(Candidate::load).thenComparingInt(Candidate::tie));
+        return free.stream().map(Candidate::barber).toList();
+    }
+
+    private record Candidate(String barber, int load, int tie) {}
+}
@@ -0,0 +1,197 @@
+package com.projectgo.barber_booking.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * อันดับช่างตามคะแนนรีวิวในช่วงเวลาเลื่อน (7/30/90 วัน) — ตอบจากหน่วยความจำ
+ * - ต่อช่าง: ring buffer ของ bucket รายวัน (จำนวน + ผลรวมคะแนน) ย้อนหลัง MAX_DAYS วัน
+ * - โหลดจาก service_reviews ตอนแอปพร้อม (เฉพาะ MAX_DAYS วันล่าสุด) แล้วอัปเดตทุกครั้งที่มีรีวิวใหม่/ถูกลบ
+ * - ระหว่าง rebuild การอัปเดตจะถูกเก็บไว้แล้วเล่นซ้ำบนข้อมูลชุดใหม่ก่อนสลับ (เทียบ id รีวิวกับที่ query เห็น → ไม่นับซ้ำ)
+ * วันของรีวิวนับตาม time zone ของเครื่อง (เหมือนหน้าอื่นที่ใช้ LocalDate.now())
+ */
+@Service
+public class BarberLeaderboard {
+
+    private static final Logger log = LoggerFactory.getLogger(BarberLeaderboard.class);
+
+    public static final int MAX_DAYS = 90;
+    public static final List<Integer> WINDOWS = List.of(7, 30, 90);
+    public static final int DEFAULT_WINDOW = 30;
+
+    private final JdbcTemplate jdbc;
+    private final Clock clock;
+    private volatile Map<String, Window> byBarber = new ConcurrentHashMap<>();
+
+    private final Object updateLock = new Object();
+    private List<Update> pending; // ไม่เป็น null ระหว่าง rebuild — guard โดย updateLock
+
+    @Autowired
+    public BarberLeaderboard(JdbcTemplate jdbc) {
+        this(jdbc, Clock.systemDefaultZone());
+    }
+
+    BarberLeaderboard(JdbcTemplate jdbc, Clock clock) {
+        this.jdbc = jdbc;
+        this.clock = clock;
+    }
+
+    public record Entry(String barber, long count, double avg) {}
+
+    /** รีวิวถูกเพิ่ม (added) หรือลบ — เก็บไว้เล่นซ้ำถ้ามาระหว่าง rebuild */
+    private record Update(long reviewId, String barber, int rating, Instant createdAt, boolean added) {}
+
+    /** bucket รายวันของช่างหนึ่งคน (slot = epochDay % MAX_DAYS, day[] บอกว่า slot เป็นของวันไหน) */
+    private static final class Window {
+        private final long[] day = new long[MAX_DAYS];
+        private final long[] count = new long[MAX_DAYS];
+        private final long[] sum = new long[MAX_DAYS];
+
+        Window() {
+            Arrays.fill(day, Long.MIN_VALUE);
+        }
+
+        synchronized void add(long epochDay, long n, long ratingSum) {
+            int i = (int) Math.floorMod(epochDay, (long) MAX_DAYS);
+            if (day[i] != epochDay) {
+                if (day[i] > epochDay) return; // เก่ากว่าหน้าต่าง (slot ถูกวันใหม่กว่าใช้แล้ว)
+                day[i] = epochDay;
+                count[i] = 0;
+                sum[i] = 0;
+            }
+            count[i] = Math.max(0, count[i] + n);
+            sum[i] = Math.max(0, sum[i] + ratingSum);
+        }
+
+        /** รวม bucket ของวัน (today - days, today] */
+        synchronized long[] total(long today, int days) {
+            long c = 0, s = 0;
+            for (int i = 0; i < MAX_DAYS; i++) {
+                long d = day[i];
+                if (d <= today && d > today - days) {
+                    c += count[i];
+                    s += sum[i];
+                }
+            }
+            return new long[]{c, s};
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void rebuild() {
+        long today = today();
+        synchronized (updateLock) {
+            pending = new ArrayList<>();
+        }
+        Map<String, Window> fresh = new ConcurrentHashMap<>();
+        Set<Long> counted = new HashSet<>();
+        try {
+            // ใช้ created_at ดิบแล้วแปลงวันในแอป เพื่อให้ตรงกับ recorded() ที่ใช้ zone เดียวกัน
+            jdbc.query("""
+                    select id, barber, created_at, rating from service_reviews
+                    where barber is not null and created_at >= ?
+                    """, rs -> {
+                counted.add(rs.getLong("id"));
+                long d = epochDay(rs.getTimestamp("created_at").toInstant());
+                fresh.computeIfAbsent(rs.getString("barber"), k -> new Window()).add(d, 1, rs.getInt("rating"));
+            }, Timestamp.from(Instant.now(clock).minusSeconds((MAX_DAYS + 1) * 86_400L)));
+        } catch (RuntimeException e) {
+            synchronized (updateLock) {
+                pending = null;
+            }
+            throw e;
+        }
+        synchronized (updateLock) {
+            // การอัปเดตที่ commit ระหว่าง query: ใส่ให้ชุดใหม่เฉพาะที่ query ยังไม่ได้นับ / นับไปแล้วแต่ถูกลบ
+            for (Update u : pending) {
+                if (u.added() ? counted.add(u.reviewId()) : counted.remove(u.reviewId())) apply(fresh, u);
+            }
+            pending = null;
+            byBarber = fresh;
+        }
+        log.info("barber leaderboard: โหลด {} ช่าง (ย้อนหลัง {} วัน, วันนี้ {})",
+                fresh.size(), MAX_DAYS, LocalDate.ofEpochDay(today));
+    }
+
+    /** เรียกหลัง commit รีวิวใหม่ */
+    public void recorded(long reviewId, String barber, int rating, Instant createdAt) {
+        if (barber == null || barber.isBlank()) return;
+        update(new Update(reviewId, barber, rating, createdAt, true));
+    }
+
+    /** เรียกหลัง commit การลบรีวิว (เช่น ลบ booking แล้วรีวิวถูกลบตาม) */
+    public void removed(long reviewId, String barber, int rating, Instant createdAt) {
+        if (barber == null) return;
+        update(new Update(reviewId, barber, rating, createdAt, false));
+    }
+
+    private void update(Update u) {
+        synchronized (updateLock) {
+            if (pending != null) pending.add(u);
+            apply(byBarber, u);
+        }
+    }
+
+    private void apply(Map<String, Window> target, Update u) {
+        long d = epochDay(u.createdAt());
+        if (u.added()) {
+            target.computeIfAbsent(u.barber(), k -> new Window()).add(d, 1, u.rating());
+        } else {
+            Window w = target.get(u.barber());
+            if (w != null) w.add(d, -1, -u.rating());
+        }
+    }
+
+    /** ช่วงที่หน้าเว็บ/API รับ: 7/30/90 วัน ค่าอื่นใช้ DEFAULT_WINDOW */
+    public static int window(int days) {
+        return WINDOWS.contains(days) ? days : DEFAULT_WINDOW;
+    }
+
+    /**
+     * อันดับช่างใน days วันล่าสุด เรียงคะแนนเฉลี่ยมาก→น้อย แล้วจำนวนรีวิว
+     * @param minReviews ช่างที่มีรีวิวน้อยกว่านี้ในช่วงนั้นจะไม่ถูกจัดอันดับ
+     */
+    public List<Entry> top(int days, int minReviews) {
+        if (days < 1 || days > MAX_DAYS) {
+            throw new IllegalArgumentException("ช่วงวันต้องอยู่ระหว่าง 1 ถึง " + MAX_DAYS);
+        }
+        long today = today();
+        List<Entry> list = new ArrayList<>();
+        byBarber.forEach((barber, w) -> {
+            long[] t = w.total(today, days);
+            if (t[0] > 0 && t[0] >= minReviews) {
+                list.add(new Entry(barber, t[0], Math.round((double) t[1] / t[0] * 10) / 10.0));
+            }
+        });
+        list.sort(Comparator.comparingDouble(Entry::avg).reversed()
+                .thenComparing(Comparator.comparingLong(Entry::count).reversed())
+                .thenComparing(Entry::barber));
+        return list;
+    }
+
+    private long today() {
+        return LocalDate.now(clock).toEpochDay();
+    }
+
+    private long epochDay(Instant at) {
+        return LocalDate.ofInstant(at, clock.getZone()).toEpochDay();
+    }
+}
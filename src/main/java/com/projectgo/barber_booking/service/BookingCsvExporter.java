@@ -0,0 +1,160 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.model.BookingStatus;
+import org.postgresql.PGConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Export การจองเป็น CSV แบบ streaming — ใช้หน่วยความจำคงที่ไม่ว่าจะกี่แถว
+ * - อ่านผ่าน JDBC cursor (forward-only + fetch size จำกัด) ภายใน read-only transaction
+ *   (Postgres จะใช้ cursor จริงก็ต่อเมื่อ autocommit ปิดและตั้ง fetch size)
+ * - เขียนตรงลง output stream ผ่าน buffer ทีละแถว ไม่สร้าง String ต่อ field
+ * - ถ้าไม่มีตัวกรองแบบข้อความ (q / barber) ใช้ COPY ... TO STDOUT ของ Postgres แทน (เร็วสุด)
+ *
+ * ตัวกรอง/where clause มาจาก BookingFilters (ชุดเดียวกับแดชบอร์ด)
+ */
+@Service
+public class BookingCsvExporter {
+
+    private static final String COLUMNS =
+            "id, username, service, date, time, barber, status, note";
+    private static final String HEADER = "ID,Username,Service,Date,Time,Barber,Status,Note";
+
+    private final JdbcTemplate cursorJdbc;
+    private final DataSource dataSource;
+    private final boolean copyEnabled;
+
+    public BookingCsvExporter(DataSource dataSource,
+                              @Value("${admin.export.fetch-size:500}") int fetchSize,
+                              @Value("${admin.export.copy-enabled:true}") boolean copyEnabled) {
+        this.dataSource = dataSource;
+        this.copyEnabled = copyEnabled;
+        this.cursorJdbc = new JdbcTemplate(dataSource);
+        this.cursorJdbc.setFetchSize(Math.max(1, fetchSize));
+    }
+
+    /** เขียน BOM + header + ทุกแถวลง out (ผู้เรียกเป็นคนปิด out) */
+    @Transactional(readOnly = true)
+    public void export(BookingFilters f, OutputStream out) throws IOException {
+        Writer w = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), 64 * 1024);
+        w.write('\uFEFF'); // BOM สำหรับ Excel
+        w.write(HEADER);
+        w.write('\n');
+
+        if (copyEnabled && canCopy(f)) {
+            w.flush(); // header ต้องไปก่อนข้อมูลที่ COPY เขียนตรงลง out
+            copyOut(f, out);
+            return;
+        }
+
+        List<Object> args = new ArrayList<>();
+        String sql = "select " + COLUMNS + " from bookings" + f.where(args) + " order by date, time, id";
+        try {
+            cursorJdbc.query(sql, (RowCallbackHandler) rs -> writeRow(w, rs), args.toArray());
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause(); // client ตัดการเชื่อมต่อกลางทาง
+        }
+        w.flush();
+    }
+
+    /* ---------------- JDBC cursor path ---------------- */
+
+    private static void writeRow(Writer w, ResultSet rs) throws SQLException {
+        try {
+            w.write(Long.toString(rs.getLong(1)));
+            w.write(',');
+            field(w, rs.getString(2));
+            w.write(',');
+            field(w, rs.getString(3));
+            w.write(',');
+            LocalDate d = rs.getObject(4, LocalDate.class);
+            if (d != null) w.write(d.toString());
+            w.write(',');
+            LocalTime t = rs.getObject(5, LocalTime.class);
+            if (t != null) w.write(t.toString());
+            w.write(',');
+            field(w, rs.getString(6));
+            w.write(',');
+            field(w, rs.getString(7));
+            w.write(',');
+            field(w, rs.getString(8));
+            w.write('\n');
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+
+    /** RFC 4180: ครอบด้วย " เฉพาะเมื่อจำเป็น และเขียนทีละช่วงโดยไม่สร้าง String ใหม่ */
+    static void field(Writer w, String s) throws IOException {
+        if (s == null || s.isEmpty()) return;
+        boolean quote = false;
+        for (int i = 0, n = s.length(); i < n && !quote; i++) {
+            char c = s.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        if (!quote) {
+            w.write(s);
+            return;
+        }
+        w.write('"');
+        int from = 0;
+        for (int i = 0, n = s.length(); i < n; i++) {
+            if (s.charAt(i) == '"') {
+                w.write(s, from, i - from + 1); // รวม " ตัวนี้
+                w.write('"');                   // แล้วซ้ำอีกตัว
+                from = i + 1;
+            }
+        }
+        w.write(s, from, s.length() - from);
+        w.write('"');
+    }
+
+    /* ---------------- COPY fast path ---------------- */
+
+    private static boolean canCopy(BookingFilters f) {
+        if (f.hasTextFilter()) return false;
+        return f.status() == null || f.status().isBlank() || BookingStatus.isValid(f.status()); // ฝังเป็น literal ใน COPY ได้เฉพาะค่าที่รู้จัก
+    }
+
+    private void copyOut(BookingFilters f, OutputStream out) throws IOException {
+        // ทุกค่าที่ฝังเป็น literal: LocalDate (รูปแบบคงที่) และ status จาก whitelist เท่านั้น
+        List<String> conds = new ArrayList<>();
+        if (f.status() != null && !f.status().isBlank()) {
+            conds.add("status = '" + f.status() + "'");
+        }
+        f.dateConditions(conds, null);
+        String where = conds.isEmpty() ? "" : " where " + String.join(" and ", conds);
+        String sql = "COPY (select id, username, service, date, to_char(time, 'HH24:MI'), barber, status, note"
+                + " from bookings" + where + " order by date, time, id) TO STDOUT WITH (FORMAT csv)";
+
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        try {
+            con.unwrap(PGConnection.class).getCopyAPI().copyOut(sql, out);
+        } catch (SQLException ex) {
+            throw new IOException("COPY export failed", ex);
+        } finally {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+}
@@ -0,0 +1,392 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.dto.ImportReportDTO;
+import com.projectgo.barber_booking.model.BookingStatus;
+import org.postgresql.PGConnection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * นำเข้าการจองจาก CSV (ย้ายข้อมูลจากใบ walk-in / ระบบเก่า) แบบ streaming
+ * - อ่านทีละแถว ไม่โหลดทั้งไฟล์; header ใช้ชื่อคอลัมน์ (ไม่สนตัวพิมพ์) รูปแบบเดียวกับไฟล์ export:
+ *   ID,Username,Service,Date,Time,Barber,Status,Note — ID ไม่ใช้, Status ว่าง = รอดำเนินการ
+ * - ตรวจทีละแถว: ช่องบังคับ, วันที่ yyyy-MM-dd, เวลา HH:mm[:ss], status ตาม ck_bookings_status,
+ *   ความยาว และผู้ใช้ต้องมีอยู่จริง (FK)
+ * - เขียนเป็นชุด (admin.import.batch-size): COPY เข้า temp table แล้ว insert ... select
+ *   on conflict (date, time, barber) do nothing — แถวที่ชน ux_bookings_barber_slot (รวมถึงแถวในไฟล์ที่ซ้ำกันเอง)
+ *   ถูกรายงานเป็น error รายแถว; ไม่จำช่องเวลาข้ามชุด หน่วยความจำจึงไม่โตตามขนาดไฟล์
+ *   ไม่ต้องขอ id ทีละแถวแบบ IDENTITY ของ Hibernate
+ * - แต่ละชุดเป็น transaction ของตัวเอง (rollup booking_daily_stats อัปเดตในชุดเดียวกัน) ไม่ส่งแจ้งเตือน
+ *   ชุดที่เขียนไม่สำเร็จ (รวม COPY) ถูกรายงานเป็น error ทุกแถวของชุดนั้น แล้วนำเข้าชุดถัดไปต่อ
+ */
+@Service
+public class BookingCsvImporter {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingCsvImporter.class);
+
+    private static final int MAX_NAME_LENGTH = 100;
+    private static final int MAX_NOTE_LENGTH = 500;
+
+    private static final String STAGE_SQL = """
+            create temp table import_bookings on commit drop as
+            select 0 as line, username, service, date, time, barber, status, note from bookings with no data
+            """;
+    private static final String COPY_SQL =
+            "COPY import_bookings (line, username, service, date, time, barber, status, note) FROM STDIN WITH (FORMAT csv)";
+    private static final String INSERT_SQL = """
+            insert into bookings (username, service, date, time, barber, status, note)
+            select username, service, date, time, barber, status, note from import_bookings order by line
+            on conflict (date, time, barber) do nothing
+            returning date, time, barber, service, status
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final DataSource dataSource;
+    private final TransactionTemplate tx;
+    private final BookingRollup rollup;
+    private final SlotAvailabilityIndex slotIndex;
+    private final int batchSize;
+    private final int maxErrors;
+
+    public BookingCsvImporter(JdbcTemplate jdbc, DataSource dataSource, PlatformTransactionManager txManager,
+                              BookingRollup rollup, SlotAvailabilityIndex slotIndex,
+                              @Value("${admin.import.batch-size:5000}") int batchSize,
+                              @Value("${admin.import.max-errors:1000}") int maxErrors) {
+        this.jdbc = jdbc;
+        this.dataSource = dataSource;
+        this.tx = new TransactionTemplate(txManager);
+        this.rollup = rollup;
+        this.slotIndex = slotIndex;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxErrors = Math.max(0, maxErrors);
+    }
+
+    private record Row(long line, String username, String service, LocalDate date, LocalTime time,
+                       String barber, String status, String note) {
+
+        SlotKey slot() {
+            return new SlotKey(date, time, barber);
+        }
+    }
+
+    private record SlotKey(LocalDate date, LocalTime time, String barber) {}
+
+    /** ตัวสะสมผลระหว่างนำเข้า */
+    private final class Report {
+        long rows, inserted, failed;
+        final List<ImportReportDTO.RowError> errors = new ArrayList<>();
+        boolean truncated;
+
+        void error(long line, String message) {
+            failed++;
+            if (errors.size() < maxErrors) errors.add(new ImportReportDTO.RowError(line, message));
+            else truncated = true;
+        }
+
+        ImportReportDTO toDto() {
+            return new ImportReportDTO(rows, inserted, failed, errors, truncated);
+        }
+    }
+
+    public ImportReportDTO importCsv(InputStream in) throws IOException {
+        Report report = new Report();
+        CsvReader csv = new CsvReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+
+        List<String> header = csv.next();
+        if (header == null) return report.toDto();
+        Map<String, Integer> cols = columns(header);
+        for (String required : List.of("username", "service", "date", "time", "barber")) {
+            if (!cols.containsKey(required)) {
+                throw new IllegalArgumentException("ไม่พบคอลัมน์ " + required + " ใน header");
+            }
+        }
+
+        List<Row> batch = new ArrayList<>(batchSize);
+        List<String> fields;
+        long t0 = System.nanoTime();
+        while ((fields = csv.next()) != null) {
+            long line = csv.recordLine();
+            if (fields.size() == 1 && fields.get(0).isBlank()) continue; // บรรทัดว่าง
+            report.rows++;
+
+            Row row;
+            try {
+                row = parse(line, fields, cols);
+            } catch (IllegalArgumentException ex) {
+                report.error(line, ex.getMessage());
+                continue;
+            }
+            batch.add(row);
+            if (batch.size() >= batchSize) {
+                flush(batch, report);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) flush(batch, report);
+
+        long ms = (System.nanoTime() - t0) / 1_000_000;
+        log.info("import bookings: {} แถว, เพิ่ม {}, ผิดพลาด {}, {} ms", report.rows, report.inserted, report.failed, ms);
+        return report.toDto();
+    }
+
+    /* ---------------- validation ---------------- */
+
+    static Map<String, Integer> columns(List<String> header) {
+        Map<String, Integer> cols = new HashMap<>();
+        for (int i = 0; i < header.size(); i++) {
+            String name = header.get(i).strip();
+            if (i == 0 && !name.isEmpty() && name.charAt(0) == '\uFEFF') name = name.substring(1); // BOM จาก Excel / ไฟล์ export
+            cols.putIfAbsent(name.toLowerCase(Locale.ROOT), i);
+        }
+        return cols;
+    }
+
+    private static Row parse(long line, List<String> f, Map<String, Integer> cols) {
+        String username = required(f, cols, "username", MAX_NAME_LENGTH);
+        String service = required(f, cols, "service", MAX_NAME_LENGTH);
+        String barber = required(f, cols, "barber", MAX_NAME_LENGTH);
+
+        LocalDate date;
+        try {
+            date = LocalDate.parse(required(f, cols, "date", 10));
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("วันที่ต้องเป็นรูปแบบ yyyy-MM-dd");
+        }
+        LocalTime time;
+        try {
+            time = LocalTime.parse(required(f, cols, "time", 8));
+        } catch (DateTimeParseException ex) {
+            throw new IllegalArgumentException("เวลาต้องเป็นรูปแบบ HH:mm");
+        }
+
+        String status = optional(f, cols, "status");
+        if (status == null) status = BookingStatus.PENDING;
+        if (!BookingStatus.isValid(status)) {
+            throw new IllegalArgumentException("สถานะไม่ถูกต้อง: " + status);
+        }
+        String note = optional(f, cols, "note");
+        if (note != null && note.length() > MAX_NOTE_LENGTH) {
+            throw new IllegalArgumentException("note ยาวเกิน " + MAX_NOTE_LENGTH + " ตัวอักษร");
+        }
+        return new Row(line, username, service, date, time, barber, status, note);
+    }
+
+    private static String required(List<String> f, Map<String, Integer> cols, String name, int maxLength) {
+        String v = optional(f, cols, name);
+        if (v == null) throw new IllegalArgumentException("ต้องระบุ " + name);
+        if (v.length() > maxLength) throw new IllegalArgumentException(name + " ยาวเกิน " + maxLength + " ตัวอักษร");
+        return v;
+    }
+
+    private static String optional(List<String> f, Map<String, Integer> cols, String name) {
+        Integer i = cols.get(name);
+        if (i == null || i >= f.size()) return null;
+        String v = f.get(i).strip();
+        return v.isEmpty() ? null : v;
+    }
+
+    /* ---------------- batch write ---------------- */
+
+    private void flush(List<Row> batch, Report report) {
+        // ผู้ใช้ต้องมีอยู่ (fk_bookings_user) — ตรวจทั้งชุดด้วย query เดียว
+        Set<String> names = new HashSet<>();
+        batch.forEach(r -> names.add(r.username()));
+        Set<String> known = new HashSet<>(jdbc.queryForList(
+                "select username from users where username = any(?)", String.class,
+                (Object) names.toArray(new String[0])));
+
+        List<Row> rows = new ArrayList<>(batch.size());
+        for (Row r : batch) {
+            if (known.contains(r.username())) rows.add(r);
+            else report.error(r.line(), "ไม่พบผู้ใช้ " + r.username());
+        }
+        if (rows.isEmpty()) return;
+
+        Set<SlotKey> inserted;
+        try {
+            inserted = tx.execute(status -> insert(rows));
+        } catch (DataAccessException | TransactionException ex) {
+            String cause = ex.getMostSpecificCause().getMessage();
+            log.warn("import batch ล้มเหลว ({} แถว): {}", rows.size(), cause);
+            rows.forEach(r -> report.error(r.line(), "บันทึกชุดนี้ไม่สำเร็จ: " + cause));
+            return;
+        }
+
+        // แถวในไฟล์ที่ช่องเวลาซ้ำกันเองก็ถูก on conflict ข้ามไปเหมือนกัน → นับเฉพาะแถวแรก (insert เรียงตาม line)
+        Set<SlotKey> claimed = new HashSet<>();
+        Set<SlotKey> days = new HashSet<>();
+        for (Row r : rows) {
+            if (inserted.contains(r.slot()) && claimed.add(r.slot())) report.inserted++;
+            else report.error(r.line(), "ช่องเวลานี้ถูกจองแล้ว (ช่าง/วัน/เวลาซ้ำ)");
+            days.add(new SlotKey(r.date(), null, r.barber()));
+        }
+        // bitmap ช่องว่างของวันที่ได้รับผล → โหลดใหม่รอบหน้า
+        days.forEach(d -> slotIndex.invalidate(d.barber(), d.date()));
+    }
+
+    /**
+     * ภายใน transaction: COPY → temp table → insert ... on conflict do nothing → rollup
+     * คืนช่องเวลาของแถวที่เพิ่มได้จริง (ที่เหลือชน unique index)
+     */
+    private Set<SlotKey> insert(List<Row> rows) {
+        jdbc.execute(STAGE_SQL);
+        copyIn(rows);
+
+        Set<SlotKey> inserted = new HashSet<>(rows.size() * 2);
+        List<BookingRollup.Key> keys = new ArrayList<>(rows.size());
+        jdbc.query(INSERT_SQL, (RowCallbackHandler) rs -> {
+            LocalDate date = rs.getObject(1, LocalDate.class);
+            String barber = rs.getString(3);
+            inserted.add(new SlotKey(date, rs.getObject(2, LocalTime.class), barber));
+            keys.add(new BookingRollup.Key(date, barber, rs.getString(4), rs.getString(5)));
+        });
+        rollup.addedAll(keys);
+        return inserted;
+    }
+
+    /**
+     * ส่งทั้งชุดเข้า temp table ด้วย COPY (CSV) ผ่าน connection ของ transaction ปัจจุบัน
+     * error แปลงเป็น DataAccessException เหมือน JdbcTemplate → flush() รายงานเป็นรายแถวได้
+     */
+    private void copyIn(List<Row> rows) {
+        StringWriter buf = new StringWriter(rows.size() * 96);
+        try {
+            for (Row r : rows) {
+                buf.write(Long.toString(r.line()));
+                buf.write(',');
+                BookingCsvExporter.field(buf, r.username());
+                buf.write(',');
+                BookingCsvExporter.field(buf, r.service());
+                buf.write(',');
+                buf.write(r.date().toString());
+                buf.write(',');
+                buf.write(r.time().toString());
+                buf.write(',');
+                BookingCsvExporter.field(buf, r.barber());
+                buf.write(',');
+                BookingCsvExporter.field(buf, r.status());
+                buf.write(',');
+                BookingCsvExporter.field(buf, r.note()); // null → ช่องว่าง = NULL ใน COPY csv
+                buf.write('\n');
+            }
+        } catch (IOException impossible) {
+            throw new IllegalStateException(impossible);
+        }
+
+        Connection con = DataSourceUtils.getConnection(dataSource);
+        try {
+            con.unwrap(PGConnection.class).getCopyAPI().copyIn(COPY_SQL, new StringReader(buf.toString()));
+        } catch (SQLException ex) {
+            DataAccessException translated = jdbc.getExceptionTranslator().translate("COPY import", COPY_SQL, ex);
+            throw translated != null ? translated : new DataAccessResourceFailureException("COPY import failed", ex);
+        } catch (IOException ex) {
+            throw new DataAccessResourceFailureException("COPY import failed", ex);
+        } finally {
+            DataSourceUtils.releaseConnection(con, dataSource);
+        }
+    }
+
+    /* ---------------- CSV reader ---------------- */
+
+    /**
+     * ตัวอ่าน CSV แบบ RFC 4180 ทีละ record (รองรับ "..." ที่มี , / "" / ขึ้นบรรทัดใหม่ข้างใน)
+     * อ่านผ่าน buffer ของตัวเอง ไม่สร้าง String ต่อบรรทัด
+     */
+    static final class CsvReader {
+        private final Reader in;
+        private final char[] buf = new char[64 * 1024];
+        private int pos, len;
+        private long line = 1, recordLine;
+        private boolean eof;
+
+        CsvReader(Reader in) {
+            this.in = in;
+        }
+
+        /** เลขบรรทัดที่ record ล่าสุดเริ่มต้น */
+        long recordLine() {
+            return recordLine;
+        }
+
+        /** record ถัดไป หรือ null เมื่อจบไฟล์ */
+        List<String> next() throws IOException {
+            if (!fill()) return null;
+            recordLine = line;
+            List<String> fields = new ArrayList<>();
+            StringBuilder sb = new StringBuilder();
+            boolean quoted = false;
+            while (fill()) {
+                char c = buf[pos++];
+                if (quoted) {
+                    if (c == '"') {
+                        if (fill() && buf[pos] == '"') {
+                            sb.append('"');
+                            pos++;
+                        } else {
+                            quoted = false;
+                        }
+                    } else {
+                        if (c == '\n') line++;
+                        sb.append(c);
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                } else if (c == ',') {
+                    fields.add(sb.toString());
+                    sb.setLength(0);
+                } else if (c == '\n') {
+                    line++;
+                    break;
+                } else if (c != '\r') {
+                    sb.append(c);
+                }
+            }
+            fields.add(sb.toString());
+            return fields;
+        }
+
+        private boolean fill() throws IOException {
+            if (pos < len) return true;
+            if (eof) return false;
+            len = in.read(buf, 0, buf.length);
+            pos = 0;
+            if (len <= 0) {
+                eof = true;
+                len = 0;
+                return false;
+            }
+            return true;
+        }
+    }
+}
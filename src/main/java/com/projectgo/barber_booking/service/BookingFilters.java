@@ -0,0 +1,66 @@
+package com.projectgo.barber_booking.service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ตัวกรองรายการจองของแอดมิน (/api/admin/bookings, /stream, /export) และ where clause ของ SQL
+ * เป็นนิยามตัวกรองเพียงชุดเดียว — BookingListReader และ BookingCsvExporter ใช้ร่วมกัน
+ */
+public record BookingFilters(String status, String barber, LocalDate date,
+                             LocalDate startDate, LocalDate endDate, String q) {
+
+    /** มีตัวกรองแบบข้อความ (LIKE) ซึ่งฝังเป็น literal ใน COPY ไม่ได้ */
+    boolean hasTextFilter() {
+        return (q != null && !q.isBlank()) || (barber != null && !barber.isBlank());
+    }
+
+    /** " where ..." (หรือ "" ถ้าไม่กรอง) โดยเติมค่าของ ? ลง args ตามลำดับ */
+    String where(List<Object> args) {
+        List<String> conds = new ArrayList<>();
+        if (status != null && !status.isBlank()) {
+            conds.add("status = ?");
+            args.add(status);
+        }
+        if (barber != null && !barber.isBlank()) {
+            conds.add("lower(barber) like ?");
+            args.add("%" + barber.trim().toLowerCase() + "%");
+        }
+        if (q != null && !q.isBlank()) {
+            String like = "%" + q.trim().toLowerCase() + "%";
+            StringBuilder or = new StringBuilder("(");
+            try {
+                long id = Long.parseLong(q.trim());
+                or.append("id = ? or ");
+                args.add(id);
+            } catch (NumberFormatException ignored) {
+            }
+            or.append("lower(username) like ? or lower(service) like ? or lower(barber) like ? or lower(note) like ?)");
+            args.add(like);
+            args.add(like);
+            args.add(like);
+            args.add(like);
+            conds.add(or.toString());
+        }
+        dateConditions(conds, args);
+        return conds.isEmpty() ? "" : " where " + String.join(" and ", conds);
+    }
+
+    /** เงื่อนไขวันที่ — args = null จะฝังวันที่เป็น literal (สำหรับ COPY; LocalDate มีรูปแบบคงที่) */
+    void dateConditions(List<String> conds, List<Object> args) {
+        if (date != null) {
+            conds.add(args == null ? "date = '" + date + "'" : "date = ?");
+            if (args != null) args.add(date);
+            return;
+        }
+        if (startDate != null) {
+            conds.add(args == null ? "date >= '" + startDate + "'" : "date >= ?");
+            if (args != null) args.add(startDate);
+        }
+        if (endDate != null) {
+            conds.add(args == null ? "date <= '" + endDate + "'" : "date <= ?");
+            if (args != null) args.add(endDate);
+        }
+    }
+}
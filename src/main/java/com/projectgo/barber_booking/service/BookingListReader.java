@@ -0,0 +1,119 @@
+package com.projectgo.barber_booking.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.projectgo.barber_booking.dto.BookingCursor;
+import com.projectgo.barber_booking.dto.BookingRowDTO;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * เส้นทางอ่านรายการจองของแอดมินที่ไม่ผ่าน Hibernate
+ * - page(): keyset บน (date, time, id) แล้ว map แถวเป็น BookingRowDTO ตรง ๆ (ไม่มี entity, ไม่มี dirty tracking)
+ * - writeJson(): stream ทุกแถวที่ตรงเงื่อนไขลง JsonGenerator ผ่าน JDBC cursor — หน่วยความจำคงที่
+ *
+ * ตัวกรองใช้ BookingFilters ชุดเดียวกับ export CSV
+ */
+@Service
+public class BookingListReader {
+
+    private static final String COLUMNS = "id, username, service, date, time, barber, note, status";
+
+    private static final RowMapper<BookingRowDTO> MAPPER = (rs, i) -> new BookingRowDTO(
+            rs.getLong(1), rs.getString(2), rs.getString(3),
+            rs.getObject(4, LocalDate.class), rs.getObject(5, LocalTime.class),
+            rs.getString(6), rs.getString(7), rs.getString(8));
+
+    private final JdbcTemplate jdbc;
+    private final JdbcTemplate cursorJdbc;
+
+    public BookingListReader(JdbcTemplate jdbc, DataSource dataSource,
+                             @Value("${admin.export.fetch-size:500}") int fetchSize) {
+        this.jdbc = jdbc;
+        this.cursorJdbc = new JdbcTemplate(dataSource);
+        this.cursorJdbc.setFetchSize(Math.max(1, fetchSize));
+    }
+
+    /**
+     * หน้าถัดไป (หรือก่อนหน้าเมื่อ backward) จาก at — at = null คือหน้าแรก
+     * คืนเรียง asc เสมอ; ดึงตาม limit ที่ผู้เรียกส่งมา (ผู้เรียกขอ +1 เองเพื่อรู้ว่ามีหน้าต่อไหม)
+     */
+    public List<BookingRowDTO> page(BookingFilters f, BookingCursor at, boolean backward, int limit) {
+        List<Object> args = new ArrayList<>();
+        StringBuilder sql = new StringBuilder("select ").append(COLUMNS).append(" from bookings")
+                .append(f.where(args));
+        if (at != null) {
+            // row-value comparison → ใช้ ix_bookings_date_time_id ได้ตรง ๆ
+            sql.append(args.isEmpty() ? " where " : " and ")
+                    .append(backward ? "(date, time, id) < (?, ?, ?)" : "(date, time, id) > (?, ?, ?)");
+            args.add(at.date());
+            args.add(at.time());
+            args.add(at.id());
+        }
+        String dir = backward ? " desc" : "";
+        sql.append(" order by date").append(dir).append(", time").append(dir).append(", id").append(dir)
+                .append(" limit ?");
+        args.add(limit);
+
+        List<BookingRowDTO> rows = jdbc.query(sql.toString(), MAPPER, args.toArray());
+        if (backward) Collections.reverse(rows);
+        return rows;
+    }
+
+    public long count(BookingFilters f) {
+        List<Object> args = new ArrayList<>();
+        Long n = jdbc.queryForObject("select count(*) from bookings" + f.where(args),
+                Long.class, args.toArray());
+        return n == null ? 0 : n;
+    }
+
+    /**
+     * เขียน JSON array ของทุกแถวที่ตรงเงื่อนไขลง g ทีละแถว (ผู้เรียกเป็นคน flush/close)
+     * g ต้องสร้างจาก ObjectMapper ของแอป (มี codec สำหรับ LocalDate/LocalTime)
+     */
+    @Transactional(readOnly = true)
+    public void writeJson(BookingFilters f, JsonGenerator g) throws IOException {
+        List<Object> args = new ArrayList<>();
+        String sql = "select " + COLUMNS + " from bookings" + f.where(args)
+                + " order by date, time, id";
+        g.writeStartArray();
+        try {
+            cursorJdbc.query(sql, (RowCallbackHandler) rs -> writeRow(g, rs), args.toArray());
+        } catch (UncheckedIOException ex) {
+            throw ex.getCause(); // client ตัดการเชื่อมต่อกลางทาง
+        }
+        g.writeEndArray();
+    }
+
+    private static void writeRow(JsonGenerator g, ResultSet rs) throws SQLException {
+        try {
+            g.writeStartObject();
+            g.writeNumberField("id", rs.getLong(1));
+            g.writeStringField("username", rs.getString(2));
+            g.writeStringField("service", rs.getString(3));
+            // วันที่/เวลาผ่าน codec (ObjectMapper ของแอป) → รูปแบบเดียวกับ endpoint รายการแบบแบ่งหน้า
+            g.writeObjectField("date", rs.getObject(4, LocalDate.class));
+            g.writeObjectField("time", rs.getObject(5, LocalTime.class));
+            g.writeStringField("barber", rs.getString(6));
+            g.writeStringField("note", rs.getString(7));
+            g.writeStringField("status", rs.getString(8));
+            g.writeEndObject();
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+    }
+}
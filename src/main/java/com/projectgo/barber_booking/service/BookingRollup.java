@@ -0,0 +1,180 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.model.Booking;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * ดูแลตาราง booking_daily_stats (จำนวนการจองต่อ วัน/ช่าง/บริการ/สถานะ)
+ * - added / removed / moved (และแบบหลายแถว addedAll / movedAll) ต้องถูกเรียกใน transaction เดียวกับการเขียน bookings (MANDATORY)
+ *   → BookingService เป็นคนเรียก
+ * - verify() เทียบกับ bookings จริงแล้วรายงาน drift (และซ่อมด้วย rebuild ถ้าเปิด auto-repair)
+ */
+@Service
+public class BookingRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingRollup.class);
+
+    private static final String INCREMENT_SQL = """
+            insert into booking_daily_stats (date, barber, service, status, cnt) values (?, ?, ?, ?, 1)
+            on conflict (date, barber, service, status) do update set cnt = booking_daily_stats.cnt + 1
+            """;
+    private static final String DECREMENT_SQL =
+            "update booking_daily_stats set cnt = cnt - 1 where date = ? and barber = ? and service = ? and status = ?";
+    private static final String ADJUST_SQL = """
+            insert into booking_daily_stats (date, barber, service, status, cnt) values (?, ?, ?, ?, ?)
+            on conflict (date, barber, service, status) do update set cnt = booking_daily_stats.cnt + excluded.cnt
+            """;
+    private static final String DELETE_EMPTY_SQL =
+            "delete from booking_daily_stats where date = ? and barber = ? and service = ? and status = ? and cnt <= 0";
+
+    private static final String DRIFT_SQL = """
+            select date, barber, service, status,
+                   coalesce(a.n, 0) as expected, coalesce(r.cnt, 0) as stored
+            from (select date, coalesce(barber, '') as barber, service, status, count(*) as n
+                  from bookings group by date, coalesce(barber, ''), service, status) a
+            full join (select date, barber, service, status, cnt
+                       from booking_daily_stats where cnt <> 0) r
+                 using (date, barber, service, status)
+            where coalesce(a.n, 0) <> coalesce(r.cnt, 0)
+            order by date, barber, service, status
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final boolean autoRepair;
+
+    public BookingRollup(JdbcTemplate jdbc,
+                         @Value("${stats.rollup.auto-repair:true}") boolean autoRepair) {
+        this.jdbc = jdbc;
+        this.autoRepair = autoRepair;
+    }
+
+    /** คีย์ของแถวใน rollup ที่ booking หนึ่งนับอยู่ (booking เก่าที่ไม่มีช่าง นับเป็นช่าง "") */
+    public record Key(LocalDate date, String barber, String service, String status) {
+        public Key {
+            if (barber == null) barber = "";
+        }
+
+        public static Key of(Booking b) {
+            return new Key(b.getDate(), b.getBarber(), b.getService(), b.getStatus());
+        }
+
+        Object[] args() {
+            return new Object[]{date, barber, service, status};
+        }
+    }
+
+    public record Drift(LocalDate date, String barber, String service, String status, long expected, long stored) {}
+
+    public record Report(Instant checkedAt, int driftRows, List<Drift> sample, boolean repaired) {}
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void added(Booking b) {
+        jdbc.update(INCREMENT_SQL, Key.of(b).args());
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removed(Key k) {
+        Object[] args = k.args();
+        jdbc.update(DECREMENT_SQL, args);
+        jdbc.update(DELETE_EMPTY_SQL, args);
+    }
+
+    /** ย้ายวัน/เวลา, เปลี่ยนช่าง/บริการ หรือเปลี่ยนสถานะ (คีย์เท่าเดิม = ไม่ทำอะไร) */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void moved(Key before, Booking after) {
+        Key now = Key.of(after);
+        if (Objects.equals(before, now)) return;
+        removed(before);
+        jdbc.update(INCREMENT_SQL, now.args());
+    }
+
+    /** เพิ่มหลายแถวพร้อมกัน (นำเข้า CSV): รวมจำนวนต่อคีย์แล้วเขียนเป็น batch เดียว */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void addedAll(List<Key> keys) {
+        Map<Key, Integer> delta = new LinkedHashMap<>();
+        keys.forEach(k -> delta.merge(k, 1, Integer::sum));
+        adjust(delta);
+    }
+
+    /**
+     * หลายแถวเปลี่ยนคีย์พร้อมกัน (เช่นเปลี่ยนสถานะแบบกลุ่ม): รวม +/- ต่อคีย์ก่อน แล้วเขียนเป็น batch เดียว
+     * befores.get(i) คู่กับ afters.get(i)
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void movedAll(List<Key> befores, List<Booking> afters) {
+        Map<Key, Integer> delta = new LinkedHashMap<>();
+        for (int i = 0; i < befores.size(); i++) {
+            Key before = befores.get(i), now = Key.of(afters.get(i));
+            if (Objects.equals(before, now)) continue;
+            delta.merge(before, -1, Integer::sum);
+            delta.merge(now, 1, Integer::sum);
+        }
+        adjust(delta);
+    }
+
+    private void adjust(Map<Key, Integer> delta) {
+        delta.values().removeIf(n -> n == 0);
+        if (delta.isEmpty()) return;
+
+        List<Object[]> adjust = new ArrayList<>(delta.size());
+        List<Object[]> emptied = new ArrayList<>();
+        delta.forEach((k, n) -> {
+            adjust.add(new Object[]{k.date(), k.barber(), k.service(), k.status(), n});
+            if (n < 0) emptied.add(k.args());
+        });
+        jdbc.batchUpdate(ADJUST_SQL, adjust);
+        if (!emptied.isEmpty()) jdbc.batchUpdate(DELETE_EMPTY_SQL, emptied);
+    }
+
+    /** สร้างใหม่ทั้งตาราง (ล็อก rollup ไว้ระหว่างนั้น การเขียน booking ที่ชนจะรอจนเสร็จ) */
+    @Transactional
+    public int rebuild() {
+        jdbc.execute("lock table booking_daily_stats in exclusive mode");
+        jdbc.update("delete from booking_daily_stats");
+        int rows = jdbc.update("""
+                insert into booking_daily_stats (date, barber, service, status, cnt)
+                select date, coalesce(barber, ''), service, status, count(*) from bookings
+                group by date, coalesce(barber, ''), service, status
+                """);
+        log.info("rebuild booking_daily_stats: {} แถว", rows);
+        return rows;
+    }
+
+    /** เทียบ rollup กับ bookings จริง คืนรายงาน (ตัวอย่างไม่เกิน 50 แถว) */
+    @Transactional(readOnly = true)
+    public Report verify() {
+        List<Drift> drift = jdbc.query(DRIFT_SQL, (rs, i) -> new Drift(
+                rs.getObject("date", LocalDate.class), rs.getString("barber"), rs.getString("service"),
+                rs.getString("status"), rs.getLong("expected"), rs.getLong("stored")));
+        return new Report(Instant.now(), drift.size(), drift.subList(0, Math.min(50, drift.size())), false);
+    }
+
+    /** ตรวจรายวัน: ถ้ามี drift ให้ log และ rebuild ตาม stats.rollup.auto-repair */
+    @Scheduled(cron = "${stats.rollup.verify-cron:0 30 3 * * *}")
+    public Report verifyAndRepair() {
+        Report r = verify();
+        if (r.driftRows() == 0) {
+            log.debug("booking_daily_stats ตรงกับ bookings");
+            return r;
+        }
+        log.warn("booking_daily_stats drift {} แถว เช่น {}", r.driftRows(), r.sample().get(0));
+        if (!autoRepair) return r;
+        rebuild();
+        return new Report(r.checkedAt(), r.driftRows(), r.sample(), true);
+    }
+}
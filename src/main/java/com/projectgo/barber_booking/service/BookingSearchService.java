@@ -0,0 +1,70 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.model.Booking;
+import com.projectgo.barber_booking.repository.BookingRepository;
+import com.projectgo.barber_booking.spec.BookingSpecs;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.Sort;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+
+/**
+ * ค้นหาการจองแบบเรียงตามความใกล้เคียง (ช่องค้นหาของแดชบอร์ด)
+ * - มี pg_trgm: ใช้ trigram GIN index (LIKE '%q%' + fuzzy word similarity) แล้วจัดอันดับ
+ * - ไม่มี pg_trgm: fallback เป็น BookingSpecs.freeText เรียงวันล่าสุดก่อน
+ * ตรวจว่ามี extension ครั้งแรกที่เรียกแล้วจำไว้
+ */
+@Service
+public class BookingSearchService {
+
+    private static final Logger log = LoggerFactory.getLogger(BookingSearchService.class);
+
+    private final BookingRepository bookings;
+    private final JdbcTemplate jdbc;
+
+    private volatile Boolean trigramAvailable;
+
+    public BookingSearchService(BookingRepository bookings, JdbcTemplate jdbc) {
+        this.bookings = bookings;
+        this.jdbc = jdbc;
+    }
+
+    public List<Booking> search(String q, int limit) {
+        if (q == null || q.isBlank()) return List.of();
+        String term = q.trim().toLowerCase();
+        Long id = parseId(term);
+
+        if (trigramAvailable()) {
+            return bookings.searchRanked(term, "%" + term + "%", id == null ? -1L : id, limit);
+        }
+        Sort sort = Sort.by(Sort.Order.desc("date"), Sort.Order.desc("time"), Sort.Order.desc("id"));
+        return bookings.findBy(BookingSpecs.freeText(term), query -> query.sortBy(sort).limit(limit).all());
+    }
+
+    public boolean trigramAvailable() {
+        Boolean v = trigramAvailable;
+        if (v == null) {
+            try {
+                v = Boolean.TRUE.equals(jdbc.queryForObject(
+                        "select exists(select 1 from pg_extension where extname = 'pg_trgm')", Boolean.class));
+            } catch (DataAccessException ex) {
+                v = false;
+            }
+            if (!v) log.info("pg_trgm ไม่พร้อมใช้งาน → ค้นหาการจองแบบ LIKE ปกติ");
+            trigramAvailable = v;
+        }
+        return v;
+    }
+
+    private static Long parseId(String s) {
+        try {
+            return Long.parseLong(s);
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.model.Booking;
+import com.projectgo.barber_booking.model.BookingStatus;
+import com.projectgo.barber_booking.model.ServiceReview;
+import com.projectgo.barber_booking.repository.BookingRepository;
+import com.projectgo.barber_booking.repository.ServiceReviewRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * จุดเขียน booking ที่ต้องมีผลข้างเคียงใน transaction เดียวกัน
+ * (outbox แจ้งเตือน + rollup booking_daily_stats)
+ * Controller ยังเป็นคนตัดสินใจเรื่อง validation / response เหมือนเดิม
+ */
+@Service
+@RequiredArgsConstructor
+public class BookingService {
+
+    private final BookingRepository bookings;
+    private final NotificationOutbox outbox;
+    private final BookingRollup rollup;
+    private final RatingSummaryStore ratingSummaries;
+    private final ServiceReviewRepository reviews;
+    private final BarberLeaderboard leaderboard;
+    private final ReviewVersions reviewVersions;
+    private final JdbcTemplate jdbc;
+
+    /**
+     * เปลี่ยนสถานะแบบกลุ่ม: สถานะปลายทาง → สถานะต้นทางที่ยอมให้เปลี่ยนได้ (ตรงกับปุ่มในแดชบอร์ด)
+     * ย้อนกลับเป็น "รอดำเนินการ" ทีละหลายรายการไม่อนุญาต
+     */
+    public static final Map<String, Set<String>> BULK_TRANSITIONS = Map.of(
+            BookingStatus.CONFIRMED, Set.of(BookingStatus.PENDING),
+            BookingStatus.CANCELED, Set.of(BookingStatus.PENDING, BookingStatus.CONFIRMED),
+            BookingStatus.DONE, Set.of(BookingStatus.PENDING, BookingStatus.CONFIRMED, BookingStatus.CANCELED));
+
+    // ล็อกเฉพาะแถวที่เปลี่ยนได้ (เรียง id กัน deadlock กับคำสั่งกลุ่มอื่น) แล้ว UPDATE ครั้งเดียว คืนค่าเดิมมาด้วย
+    private static final String BULK_STATUS_SQL = """
+            with target as (
+                select id, status as old_status from bookings
+                where id = any(?) and status = any(?)
+                order by id
+                for update
+            )
+            update bookings b set status = ?
+            from target t
+            where b.id = t.id
+            returning b.id, b.username, b.service, b.date, b.time, b.barber, b.note, b.status, t.old_status
+            """;
+
+    /** ผลของการเปลี่ยนแบบกลุ่ม — skipped = ไม่พบ, สถานะเดิมอยู่แล้ว หรือเปลี่ยนจากสถานะนั้นไม่ได้ */
+    public record BulkStatusResult(String status, List<Long> updated, List<Long> skipped) {}
+
+    /** บันทึกการจองใหม่ + คิวแจ้งเตือน (อีเมลยืนยัน/LINE) */
+    @Transactional
+    public Booking create(Booking b) {
+        return create(b, true);
+    }
+
+    /** notify = false สำหรับช่องทางที่เดิมไม่แจ้งเตือน (เช่น REST API) */
+    @Transactional
+    public Booking create(Booking b, boolean notify) {
+        Booking saved = bookings.save(b);
+        rollup.added(saved);
+        if (notify) outbox.enqueueCreated(saved);
+        return saved;
+    }
+
+    /** บันทึกการแก้ไข ถ้าสถานะเปลี่ยนจาก before จะคิวแจ้งเตือนเปลี่ยนสถานะ */
+    @Transactional
+    public Booking update(Booking b, BookingRollup.Key before) {
+        return update(b, before, true);
+    }
+
+    @Transactional
+    public Booking update(Booking b, BookingRollup.Key before, boolean notify) {
+        Booking saved = bookings.saveAndFlush(b); // flush เพื่อให้ unique index ชนตรงนี้ ไม่ใช่ตอน commit
+        rollup.moved(before, saved);
+        String oldStatus = before.status();
+        if (notify && saved.getStatus() != null && !Objects.equals(oldStatus, saved.getStatus())) {
+            outbox.enqueueStatusChange(saved, oldStatus, saved.getStatus());
+        }
+        return saved;
+    }
+
+    /**
+     * เปลี่ยนสถานะหลายรายการใน 1 UPDATE ... RETURNING
+     * rollup ปรับเป็น batch เดียว และแจ้งเตือนทุกรายการลง outbox ใน batch เดียว (transaction เดียวกัน)
+     */
+    @Transactional
+    public BulkStatusResult updateStatuses(Collection<Long> ids, String status) {
+        Set<String> from = BULK_TRANSITIONS.get(status);
+        if (from == null) {
+            throw new IllegalArgumentException("เปลี่ยนสถานะแบบกลุ่มเป็น \"" + status + "\" ไม่ได้");
+        }
+        Set<Long> requested = new LinkedHashSet<>(ids);
+        requested.remove(null);
+        if (requested.isEmpty()) return new BulkStatusResult(status, List.of(), List.of());
+
+        List<Booking> after = new ArrayList<>(requested.size());
+        List<String> oldStatuses = new ArrayList<>(requested.size());
+        jdbc.query(BULK_STATUS_SQL, (RowCallbackHandler) rs -> {
+            Booking b = new Booking();
+            b.setId(rs.getLong(1));
+            b.setUsername(rs.getString(2));
+            b.setService(rs.getString(3));
+            b.setDate(rs.getObject(4, LocalDate.class));
+            b.setTime(rs.getObject(5, LocalTime.class));
+            b.setBarber(rs.getString(6));
+            b.setNote(rs.getString(7));
+            b.setStatus(rs.getString(8));
+            after.add(b);
+            oldStatuses.add(rs.getString(9));
+        }, requested.toArray(new Long[0]), from.toArray(new String[0]), status);
+
+        List<BookingRollup.Key> befores = new ArrayList<>(after.size());
+        for (int i = 0; i < after.size(); i++) {
+            Booking b = after.get(i);
+            befores.add(new BookingRollup.Key(b.getDate(), b.getBarber(), b.getService(), oldStatuses.get(i)));
+        }
+        rollup.movedAll(befores, after);
+        outbox.enqueueStatusChanges(after, oldStatuses);
+
+        List<Long> updated = after.stream().map(Booking::getId).toList();
+        requested.removeAll(updated);
+        return new BulkStatusResult(status, updated, List.copyOf(requested));
+    }
+
+    @Transactional
+    public void delete(Booking b) {
+        // รีวิวของ booking จะถูกลบตาม (ON DELETE CASCADE) → หักออกจากสรุปคะแนนและ leaderboard ด้วย
+        List<ServiceReview> gone = reviews.findAllByBookingIdIn(List.of(b.getId()));
+        if (!gone.isEmpty()) {
+            ratingSummaries.removedForBooking(b.getId());
+            TransactionCallbacks.afterCommit(() -> gone.forEach(r -> {
+                leaderboard.removed(r.getId(), r.getBarber(), r.getRating(), r.getCreatedAt());
+                reviewVersions.bump(r.getService());
+            }));
+        }
+        bookings.delete(b);
+        rollup.removed(BookingRollup.Key.of(b));
+    }
+}
@@ -19,14 +19,19 @@ import java.util.stream.Collectors;
 public class CustomUserDetailsService implements UserDetailsService {
 
     private final UserRepository userRepository;
-    public CustomUserDetailsService(UserRepository userRepository) {
+    private final UserCache userCache;
+
+    public CustomUserDetailsService(UserRepository userRepository, UserCache userCache) {
         this.userRepository = userRepository;
+        this.userCache = userCache;
     }
 
     @Override
     public UserDetails loadUserByUsername(String username) throws UsernameNotFoundException {
         Optional<User> opt = userRepository.findByUsername(username);
         User u = opt.orElseThrow(() -> new UsernameNotFoundException("User not found: " + username));
+        // ตรวจรหัสผ่านกับ DB เสมอ (ไม่อ่านจาก cache) แต่เติม cache ไว้ให้หน้าแรกหลังล็อกอิน
+        userCache.put(u);
 
         // รองรับหลายสิทธิ์คั่นด้วย comma และ normalize ให้เป็น ROLE_*
         String roleField = u.getRole() == null ? "" : u.getRole().trim();
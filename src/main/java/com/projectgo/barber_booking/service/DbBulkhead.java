@@ -0,0 +1,148 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.exception.DbBusyException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.datasource.ConnectionProxy;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import org.springframework.stereotype.Service;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * จำกัดจำนวนที่ถือ connection พร้อมกันไม่เกินขนาด pool (db.bulkhead.permits)
+ * - ครอบ DataSource ทั้งแอป (DbBulkheadConfig) → JPA, JdbcTemplate, COPY, Flyway ผ่านที่นี่หมด
+ * - ได้ permit ก่อนขอ connection จาก Hikari และคืนตอน close()
+ * - รอนานกว่า db.bulkhead.max-wait-ms → DbBusyException (503) แทนที่จะค้างใน getConnection
+ *   นานถึง connection-timeout ของ Hikari (30s)
+ * เทียบกับแบบไม่มี bulkhead ภายใต้โหลดเกิน pool: DbBulkheadLoadHarness (src/test)
+ */
+@Service
+public class DbBulkhead {
+
+    private final int permits;
+    private final Semaphore semaphore;
+    private final long maxWaitMillis;
+
+    private final AtomicLong acquired = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public DbBulkhead(@Value("${db.bulkhead.permits:${spring.datasource.hikari.maximum-pool-size:10}}") int permits,
+                      @Value("${db.bulkhead.max-wait-ms:2000}") long maxWaitMillis) {
+        this.permits = Math.max(1, permits);
+        this.semaphore = new Semaphore(this.permits, true);
+        this.maxWaitMillis = Math.max(0, maxWaitMillis);
+    }
+
+    /** สถิติปัจจุบัน (เวลาเป็นมิลลิวินาที) */
+    public record Stats(int permits, int inUse, int waiting, long acquired, long rejected,
+                        double avgWaitMs, double maxWaitMs) {}
+
+    public DataSource wrap(DataSource target) {
+        return new DelegatingDataSource(target) {
+            @Override
+            public Connection getConnection() throws SQLException {
+                acquire();
+                return guarded(() -> obtainTargetDataSource().getConnection());
+            }
+
+            @Override
+            public Connection getConnection(String username, String password) throws SQLException {
+                acquire();
+                return guarded(() -> obtainTargetDataSource().getConnection(username, password));
+            }
+        };
+    }
+
+    private interface ConnectionSource {
+        Connection get() throws SQLException;
+    }
+
+    private void acquire() throws SQLException {
+        long start = System.nanoTime();
+        boolean ok;
+        try {
+            ok = semaphore.tryAcquire(maxWaitMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for database", ex);
+        }
+        long waited = System.nanoTime() - start;
+        waitNanos.addAndGet(waited);
+        maxWaitNanos.accumulateAndGet(waited, Math::max);
+        if (!ok) {
+            rejected.incrementAndGet();
+            throw new DbBusyException("ฐานข้อมูลไม่ว่าง (รอเกิน " + maxWaitMillis + "ms)", 1);
+        }
+        acquired.incrementAndGet();
+    }
+
+    /**
+     * ได้ connection แล้วห่อให้ close() คืน permit ครั้งเดียว — ขอไม่สำเร็จก็คืนทันที
+     * proxy เป็น ConnectionProxy (DataSourceUtils แกะถึงตัวจริงได้) และตอบ equals/hashCode ตามตัว proxy เอง
+     */
+    private Connection guarded(ConnectionSource source) throws SQLException {
+        Connection con;
+        try {
+            con = source.get();
+        } catch (SQLException | RuntimeException ex) {
+            semaphore.release();
+            throw ex;
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return (Connection) Proxy.newProxyInstance(ConnectionProxy.class.getClassLoader(),
+                new Class<?>[]{ConnectionProxy.class},
+                (proxy, method, args) -> {
+                    switch (method.getName()) {
+                        case "equals":
+                            return proxy == args[0];
+                        case "hashCode":
+                            return System.identityHashCode(proxy);
+                        case "toString":
+                            return "DbBulkhead proxy for " + con;
+                        case "getTargetConnection":
+                            return con;
+                        case "close":
+                            try {
+                                con.close();
+                            } finally {
+                                if (released.compareAndSet(false, true)) semaphore.release();
+                            }
+                            return null;
+                        default:
+                            break;
+                    }
+                    try {
+                        return method.invoke(con, args);
+                    } catch (InvocationTargetException ex) {
+                        throw ex.getCause();
+                    }
+                });
+    }
+
+    public Stats stats() {
+        long n = acquired.get() + rejected.get();
+        return new Stats(permits, permits - semaphore.availablePermits(), semaphore.getQueueLength(),
+                acquired.get(), rejected.get(),
+                n == 0 ? 0 : waitNanos.get() / 1e6 / n,
+                maxWaitNanos.get() / 1e6);
+    }
+
+    /** ex (หรือสาเหตุของมัน) มาจากการถูก bulkhead ปฏิเสธหรือไม่ */
+    public static DbBusyException rejection(Throwable ex) {
+        for (Throwable t = ex; t != null; t = t.getCause()) {
+            if (t instanceof DbBusyException busy) return busy;
+            if (t.getCause() == t) break;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,223 @@
+package com.projectgo.barber_booking.service;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * ช่องทางแจ้งเตือนร้านผ่าน LINE Notify แบบไม่บล็อก thread
+ * - java.net.http.HttpClient (connection pool ในตัว) + connect/read timeout ชัดเจน
+ * - circuit breaker: ล้มเหลวติดกันครบ threshold → หยุดเรียก LINE ชั่วคราว แล้วลองใหม่ทีละ 1 คำขอ (half-open)
+ * - coalescing: ข้อความที่เข้ามาในช่วง window วินาที รวมเป็น digest เดียว (เช่น "จองใหม่ 5 รายการ")
+ * submit() คืน CompletableFuture ที่จะเสร็จเมื่อ digest ที่มีข้อความนั้นส่งสำเร็จ/ล้มเหลวจริง
+ *
+ * ทดสอบกับ stub ในเครื่องได้โดยตั้ง notify.line.endpoint=http://localhost:8089/api/notify
+ */
+@Service
+public class LineAlertClient {
+
+    private static final Logger log = LoggerFactory.getLogger(LineAlertClient.class);
+
+    /** LINE Notify รับข้อความได้ไม่เกิน 1000 ตัวอักษร */
+    private static final int MAX_MESSAGE_LENGTH = 1000;
+
+    private final URI endpoint;
+    private final String token;
+    private final Duration readTimeout;
+    private final long windowMillis;
+
+    private final ExecutorService httpExecutor;
+    private final HttpClient http;
+    private final ScheduledExecutorService timer;
+    private final CircuitBreaker breaker;
+
+    private final ConcurrentLinkedQueue<Pending> buffer = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    public LineAlertClient(@Value("${notify.line.endpoint:https://notify-api.line.me/api/notify}") String endpoint,
+                           @Value("${notify.line.token:}") String token,
+                           @Value("${notify.line.connect-timeout-ms:3000}") long connectTimeoutMillis,
+                           @Value("${notify.line.read-timeout-ms:5000}") long readTimeoutMillis,
+                           @Value("${notify.line.coalesce-seconds:10}") long coalesceSeconds,
+                           @Value("${notify.line.breaker.failure-threshold:5}") int failureThreshold,
+                           @Value("${notify.line.breaker.open-seconds:60}") long openSeconds) {
+        this.endpoint = URI.create(endpoint);
+        this.token = token;
+        this.readTimeout = Duration.ofMillis(readTimeoutMillis);
+        this.windowMillis = Math.max(0, coalesceSeconds) * 1000L;
+
+        AtomicInteger seq = new AtomicInteger();
+        this.httpExecutor = Executors.newFixedThreadPool(2, r -> daemon(r, "line-http-" + seq.incrementAndGet()));
+        this.http = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis))
+                .executor(httpExecutor)
+                .build();
+        this.timer = Executors.newSingleThreadScheduledExecutor(r -> daemon(r, "line-coalesce"));
+        this.breaker = new CircuitBreaker(failureThreshold, openSeconds * 1000L);
+    }
+
+    private record Pending(String kind, String message, CompletableFuture<Void> done) {}
+
+    public boolean isConfigured() {
+        return token != null && !token.isBlank();
+    }
+
+    /**
+     * ฝากข้อความเข้ารอบรวมส่ง
+     * @param kind ประเภทสำหรับสรุปใน digest เช่น "จองใหม่", "เปลี่ยนสถานะ"
+     */
+    public CompletableFuture<Void> submit(String kind, String message) {
+        if (!breaker.isClosedOrCoolingDown()) {
+            return CompletableFuture.failedFuture(new IllegalStateException("LINE circuit open"));
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        buffer.add(new Pending(kind, message, done));
+        if (flushScheduled.compareAndSet(false, true)) {
+            timer.schedule(this::flush, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return done;
+    }
+
+    /* ---------------- internals ---------------- */
+
+    private void flush() {
+        flushScheduled.set(false);
+        List<Pending> batch = new ArrayList<>();
+        Pending p;
+        while ((p = buffer.poll()) != null) batch.add(p);
+        if (batch.isEmpty()) return;
+
+        if (!breaker.allowRequest()) {
+            IllegalStateException open = new IllegalStateException("LINE circuit open");
+            batch.forEach(x -> x.done().completeExceptionally(open));
+            return;
+        }
+
+        String text = (batch.size() == 1) ? batch.get(0).message() : digest(batch);
+        post(text).whenComplete((ok, ex) -> {
+            breaker.record(ex == null);
+            for (Pending x : batch) {
+                if (ex == null) x.done().complete(null);
+                else x.done().completeExceptionally(ex);
+            }
+            if (ex != null) log.warn("ส่ง LINE ล้มเหลว ({} ข้อความ): {}", batch.size(), ex.getMessage());
+        });
+    }
+
+    private CompletableFuture<Void> post(String message) {
+        String body = "message=" + URLEncoder.encode(truncate(message), StandardCharsets.UTF_8);
+        HttpRequest req = HttpRequest.newBuilder(endpoint)
+                .timeout(readTimeout)
+                .header("Authorization", "Bearer " + token)
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(body))
+                .build();
+        return http.sendAsync(req, HttpResponse.BodyHandlers.ofString())
+                .thenApply(res -> {
+                    if (res.statusCode() / 100 != 2) {
+                        throw new IllegalStateException("LINE Notify HTTP " + res.statusCode() + " | " + res.body());
+                    }
+                    return null;
+                });
+    }
+
+    /** รวมหลายข้อความเป็นข้อความเดียว: หัวสรุปตามประเภท + รายละเอียดเท่าที่ใส่ได้ */
+    private static String digest(List<Pending> batch) {
+        Map<String, Integer> byKind = new LinkedHashMap<>();
+        batch.forEach(p -> byKind.merge(p.kind(), 1, Integer::sum));
+
+        StringBuilder sb = new StringBuilder("\n📋 สรุปแจ้งเตือน ").append(batch.size()).append(" รายการ\n");
+        byKind.forEach((k, n) -> sb.append("• ").append(k).append(" ").append(n).append(" รายการ\n"));
+        for (Pending p : batch) {
+            String part = "\n" + p.message().strip() + "\n";
+            if (sb.length() + part.length() > MAX_MESSAGE_LENGTH) {
+                sb.append("\n…");
+                break;
+            }
+            sb.append(part);
+        }
+        return sb.toString();
+    }
+
+    private static String truncate(String s) {
+        return s.length() <= MAX_MESSAGE_LENGTH ? s : s.substring(0, MAX_MESSAGE_LENGTH - 1) + "…";
+    }
+
+    private static Thread daemon(Runnable r, String name) {
+        Thread t = new Thread(r, name);
+        t.setDaemon(true);
+        return t;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        timer.shutdown();
+        httpExecutor.shutdown();
+    }
+
+    /**
+     * circuit breaker แบบง่าย: CLOSED → (ล้มเหลวติดกันครบ threshold) → OPEN
+     * → (ครบ openMillis) → HALF-OPEN ปล่อยทดลอง 1 คำขอ → สำเร็จ CLOSED / ล้มเหลว OPEN ใหม่
+     */
+    static final class CircuitBreaker {
+        private final int threshold;
+        private final long openMillis;
+        private final AtomicInteger failures = new AtomicInteger();
+        private final AtomicLong openedAt = new AtomicLong();   // 0 = ปิดวงจร (ปกติ)
+        private final AtomicBoolean trial = new AtomicBoolean();
+
+        CircuitBreaker(int threshold, long openMillis) {
+            this.threshold = Math.max(1, threshold);
+            this.openMillis = Math.max(1000, openMillis);
+        }
+
+        /** รับงานเข้าคิวได้ไหม (ไม่กินสิทธิ์ทดลองของ half-open) */
+        boolean isClosedOrCoolingDown() {
+            long at = openedAt.get();
+            return at == 0 || System.currentTimeMillis() - at >= openMillis;
+        }
+
+        boolean allowRequest() {
+            long at = openedAt.get();
+            if (at == 0) return true;
+            if (System.currentTimeMillis() - at < openMillis) return false;
+            return trial.compareAndSet(false, true);
+        }
+
+        void record(boolean success) {
+            if (success) {
+                failures.set(0);
+                openedAt.set(0);
+                trial.set(false);
+                return;
+            }
+            if (trial.getAndSet(false) || failures.incrementAndGet() >= threshold) {
+                openedAt.set(System.currentTimeMillis());
+                failures.set(0);
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.exception.LoginThrottledException;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * นับการล็อกอินผิดในหน้าต่างเวลา (auth.guard.window-seconds) แล้วปฏิเสธ "ก่อน" hash รหัสผ่าน จนกว่าหน้าต่างนั้นจะหมด
+ * - ต่อคู่ (username, IP): เดารหัสบัญชีหนึ่งจากที่เดียว — ไม่ล็อกทั้งบัญชี คนนอกจึงล็อกเจ้าของตัวจริง (ที่มาจาก IP อื่น) ไม่ได้
+ * - ต่อ IP: เพดานรวมทุกบัญชี กันไล่เดาหลายบัญชีจากที่เดียว
+ * - ต่อบัญชี (ทุก IP รวมกัน): ไม่ล็อก แต่หน่วงแบบทวีคูณหลังผิดเกิน auth.guard.account-free-failures ครั้ง
+ *   (ครั้งละ 1, 2, 4, ... วินาที ไม่เกิน auth.guard.account-max-delay-seconds นับจากครั้งที่ผิดล่าสุด)
+ *   → เดารหัสบัญชีเดียวจากหลาย IP ได้ช้ามาก ขณะที่เจ้าของรอนานสุดแค่ไม่กี่วินาที
+ * - ล็อกอินสำเร็จล้างตัวนับของคู่นั้นและของบัญชี (ตัวนับของ IP ไม่ล้าง)
+ * - เก็บใน LRU จำกัดจำนวน → ชื่อผู้ใช้มั่ว ๆ จำนวนมากไม่ทำให้ heap โต
+ */
+@Service
+public class LoginAttemptGuard {
+
+    private final int maxPerUser;
+    private final int maxPerIp;
+    private final long windowMillis;
+    private final int accountFreeFailures;
+    private final long accountMaxDelayMillis;
+    private final Map<String, Window> userIps;
+    private final Map<String, Window> ips;
+    private final Map<String, Window> accounts;
+
+    private final AtomicLong blocked = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public LoginAttemptGuard(@Value("${auth.guard.max-failures-per-user:5}") int maxPerUser,
+                             @Value("${auth.guard.max-failures-per-ip:20}") int maxPerIp,
+                             @Value("${auth.guard.window-seconds:900}") long windowSeconds,
+                             @Value("${auth.guard.max-entries:10000}") int maxEntries,
+                             @Value("${auth.guard.account-free-failures:10}") int accountFreeFailures,
+                             @Value("${auth.guard.account-max-delay-seconds:30}") long accountMaxDelaySeconds) {
+        this.maxPerUser = Math.max(1, maxPerUser);
+        this.maxPerIp = Math.max(1, maxPerIp);
+        this.windowMillis = Math.max(1, windowSeconds) * 1000;
+        this.accountFreeFailures = Math.max(1, accountFreeFailures);
+        this.accountMaxDelayMillis = Math.max(1, accountMaxDelaySeconds) * 1000;
+        this.userIps = lru(maxEntries);
+        this.ips = lru(maxEntries);
+        this.accounts = lru(maxEntries);
+    }
+
+    private static Map<String, Window> lru(int maxEntries) {
+        int cap = Math.max(16, maxEntries);
+        return new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Window> eldest) {
+                return size() > cap;
+            }
+        };
+    }
+
+    /** จำนวนครั้งที่ผิดนับจาก startedAt (lastAt = ครั้งที่ผิดล่าสุด) */
+    private record Window(long startedAt, long lastAt, int failures) {}
+
+    public record Stats(long failures, long blocked, int trackedUserIps, int trackedIps, int trackedAccounts) {}
+
+    /** เรียกก่อนตรวจรหัสผ่าน — ผิดบ่อยเกินไปจะโยน LoginThrottledException */
+    public void check(String username, String ip) {
+        long now = System.currentTimeMillis();
+        long wait = Math.max(Math.max(retryAfter(userIps, key(username, ip), maxPerUser, now),
+                                      retryAfter(ips, ip, maxPerIp, now)),
+                             accountDelay(account(username), now));
+        if (wait > 0) {
+            blocked.incrementAndGet();
+            throw new LoginThrottledException("ล็อกอินผิดหลายครั้งเกินไป กรุณารอสักครู่แล้วลองใหม่", (wait + 999) / 1000);
+        }
+    }
+
+    public void failed(String username, String ip) {
+        long now = System.currentTimeMillis();
+        failures.incrementAndGet();
+        bump(userIps, key(username, ip), now);
+        bump(ips, ip, now);
+        bump(accounts, account(username), now);
+    }
+
+    public void succeeded(String username, String ip) {
+        String k = key(username, ip);
+        if (k == null) return;
+        synchronized (userIps) {
+            userIps.remove(k);
+        }
+        synchronized (accounts) {
+            accounts.remove(account(username));
+        }
+    }
+
+    public Stats stats() {
+        int u, i, a;
+        synchronized (userIps) {
+            u = userIps.size();
+        }
+        synchronized (ips) {
+            i = ips.size();
+        }
+        synchronized (accounts) {
+            a = accounts.size();
+        }
+        return new Stats(failures.get(), blocked.get(), u, i, a);
+    }
+
+    /** มิลลิวินาทีที่ต้องรอ (0 = ผ่าน) */
+    private long retryAfter(Map<String, Window> map, String k, int max, long now) {
+        if (k == null) return 0;
+        Window w;
+        synchronized (map) {
+            w = map.get(k);
+        }
+        if (w == null || w.failures() < max) return 0;
+        return Math.max(0, w.startedAt() + windowMillis - now);
+    }
+
+    /** มิลลิวินาทีที่บัญชีนี้ต้องรอก่อนลองครั้งถัดไป (หน่วงทวีคูณ ไม่ล็อก) */
+    private long accountDelay(String k, long now) {
+        if (k == null) return 0;
+        Window w;
+        synchronized (accounts) {
+            w = accounts.get(k);
+        }
+        if (w == null || w.failures() < accountFreeFailures || now - w.startedAt() >= windowMillis) return 0;
+        int over = Math.min(20, w.failures() - accountFreeFailures);
+        long delay = Math.min(accountMaxDelayMillis, 1000L << over);
+        return Math.max(0, w.lastAt() + delay - now);
+    }
+
+    private void bump(Map<String, Window> map, String k, long now) {
+        if (k == null) return;
+        synchronized (map) {
+            Window w = map.get(k);
+            if (w == null || now - w.startedAt() >= windowMillis) {
+                map.put(k, new Window(now, now, 1));
+            } else {
+                map.put(k, new Window(w.startedAt(), now, w.failures() + 1));
+            }
+        }
+    }
+
+    private static String key(String username, String ip) {
+        String account = account(username);
+        return account == null ? null : account + '\n' + (ip == null ? "" : ip);
+    }
+
+    private static String account(String username) {
+        if (username == null || username.isBlank()) return null;
+        return username.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,197 @@
+package com.projectgo.barber_booking.service;
+
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMailMessage;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * ส่งอีเมลเป็นชุดผ่าน SMTP connection ที่เปิดค้างไว้ (pool เล็ก ๆ)
+ * - ไม่ต้อง handshake SMTP + STARTTLS + AUTH ใหม่ทุกฉบับ
+ * - คืนผลล้มเหลวรายฉบับ (index → exception) ให้ผู้เรียก retry เฉพาะฉบับที่พลาด
+ * - connection ที่ไม่ได้ใช้นานเกิน idle-timeout จะถูกปิดทิ้ง (Gmail ตัด idle session เองอยู่แล้ว)
+ * ถ้า mailSender ไม่ใช่ JavaMailSenderImpl (เช่น mock) จะ fallback เป็น send(array) ของ JavaMailSender
+ *
+ * ทดสอบความเร็วได้ด้วย fake SMTP ในเครื่อง: spring.mail.host=localhost, spring.mail.port=2525,
+ * spring.mail.properties.mail.smtp.auth=false, spring.mail.properties.mail.smtp.starttls.enable=false
+ */
+@Service
+public class MailDeliveryEngine {
+
+    private static final Logger log = LoggerFactory.getLogger(MailDeliveryEngine.class);
+
+    private final JavaMailSender mailSender;
+    private final BlockingQueue<PooledTransport> idle;
+    private final long idleTimeoutMillis;
+
+    public MailDeliveryEngine(JavaMailSender mailSender,
+                              @Value("${notify.mail.pool-size:2}") int poolSize,
+                              @Value("${notify.mail.idle-timeout-ms:60000}") long idleTimeoutMillis) {
+        this.mailSender = mailSender;
+        this.idle = new ArrayBlockingQueue<>(Math.max(1, poolSize));
+        this.idleTimeoutMillis = idleTimeoutMillis;
+    }
+
+    private static final class PooledTransport {
+        final Transport transport;
+        long lastUsed = System.currentTimeMillis();
+
+        PooledTransport(Transport transport) { this.transport = transport; }
+    }
+
+    /** ส่งทั้งชุด คืน map ของ index ที่ล้มเหลว (ว่าง = สำเร็จทั้งหมด) */
+    public Map<Integer, Exception> sendBatch(List<SimpleMailMessage> messages) {
+        if (messages.isEmpty()) return Map.of();
+        long t0 = System.nanoTime();
+        Map<Integer, Exception> failures = (mailSender instanceof JavaMailSenderImpl impl)
+                ? sendPooled(impl, messages)
+                : sendArray(messages);
+        if (log.isDebugEnabled()) {
+            double secs = (System.nanoTime() - t0) / 1e9;
+            log.debug("mail batch: {} ฉบับ, ล้มเหลว {}, {} ms ({} msg/s)",
+                    messages.size(), failures.size(), Math.round(secs * 1000),
+                    Math.round(messages.size() / Math.max(secs, 1e-6)));
+        }
+        return failures;
+    }
+
+    /* ---------------- pooled transport path ---------------- */
+
+    private Map<Integer, Exception> sendPooled(JavaMailSenderImpl impl, List<SimpleMailMessage> messages) {
+        Map<Integer, Exception> failures = new HashMap<>();
+        PooledTransport pt;
+        try {
+            pt = borrow(impl);
+        } catch (MessagingException ex) {
+            // ต่อ SMTP ไม่ได้เลย → ทั้งชุดล้มเหลว
+            for (int i = 0; i < messages.size(); i++) failures.put(i, ex);
+            return failures;
+        }
+
+        boolean healthy = true;
+        for (int i = 0; i < messages.size(); i++) {
+            try {
+                MimeMessage mime = toMime(impl, messages.get(i));
+                try {
+                    pt.transport.sendMessage(mime, mime.getAllRecipients());
+                } catch (MessagingException | IllegalStateException dropped) {
+                    if (pt.transport.isConnected()) throw dropped; // ปัญหาที่ตัวข้อความ ไม่ใช่ connection
+                    // server ตัด connection กลางทาง → ต่อใหม่แล้วลองฉบับนี้อีกครั้ง
+                    connect(impl, pt.transport);
+                    pt.transport.sendMessage(mime, mime.getAllRecipients());
+                }
+            } catch (Exception ex) {
+                failures.put(i, ex);
+                healthy = pt.transport.isConnected();
+                if (!healthy) {
+                    // ต่อใหม่ไม่ได้ → ฉบับที่เหลือถือว่าล้มเหลว ให้ outbox retry ทีหลัง
+                    for (int j = i + 1; j < messages.size(); j++) failures.put(j, ex);
+                    break;
+                }
+            }
+        }
+        giveBack(pt, healthy);
+        return failures;
+    }
+
+    private PooledTransport borrow(JavaMailSenderImpl impl) throws MessagingException {
+        long now = System.currentTimeMillis();
+        PooledTransport pt;
+        while ((pt = idle.poll()) != null) {
+            if (now - pt.lastUsed < idleTimeoutMillis && pt.transport.isConnected()) {
+                return pt;
+            }
+            closeQuietly(pt);
+        }
+        Transport t = impl.getSession().getTransport(protocolOf(impl));
+        connect(impl, t);
+        return new PooledTransport(t);
+    }
+
+    private void giveBack(PooledTransport pt, boolean healthy) {
+        pt.lastUsed = System.currentTimeMillis();
+        if (!healthy || !idle.offer(pt)) {
+            closeQuietly(pt); // pool เต็มหรือ connection เสีย
+        }
+    }
+
+    private static void connect(JavaMailSenderImpl impl, Transport t) throws MessagingException {
+        String user = impl.getUsername();
+        String pass = impl.getPassword();
+        if (user == null || user.isBlank()) {
+            user = null;
+            pass = null;
+        }
+        t.connect(impl.getHost(), impl.getPort(), user, pass);
+    }
+
+    private static String protocolOf(JavaMailSenderImpl impl) {
+        String p = impl.getProtocol();
+        return (p == null || p.isBlank()) ? "smtp" : p;
+    }
+
+    private static MimeMessage toMime(JavaMailSenderImpl impl, SimpleMailMessage simple) throws MessagingException {
+        MimeMessage mime = impl.createMimeMessage(); // ได้ default-encoding (UTF-8) ตาม spring.mail.*
+        simple.copyTo(new MimeMailMessage(mime));
+        mime.saveChanges();
+        return mime;
+    }
+
+    /* ---------------- fallback: JavaMailSender.send(array) ---------------- */
+
+    private Map<Integer, Exception> sendArray(List<SimpleMailMessage> messages) {
+        try {
+            mailSender.send(messages.toArray(new SimpleMailMessage[0]));
+            return Map.of();
+        } catch (MailSendException ex) {
+            Map<Object, Exception> byMessage = new IdentityHashMap<>(ex.getFailedMessages());
+            Map<Integer, Exception> failures = new HashMap<>();
+            for (int i = 0; i < messages.size(); i++) {
+                Exception e = byMessage.get(messages.get(i));
+                if (e != null) failures.put(i, e);
+            }
+            if (failures.isEmpty()) {
+                for (int i = 0; i < messages.size(); i++) failures.put(i, ex); // ไม่รู้ว่าฉบับไหน → ล้มทั้งชุด
+            }
+            return failures;
+        } catch (MailException ex) {
+            Map<Integer, Exception> failures = new HashMap<>();
+            for (int i = 0; i < messages.size(); i++) failures.put(i, ex);
+            return failures;
+        }
+    }
+
+    /* ---------------- lifecycle ---------------- */
+
+    private static void closeQuietly(PooledTransport pt) {
+        try {
+            pt.transport.close();
+        } catch (MessagingException ignore) {
+        }
+    }
+
+    @PreDestroy
+    void closeAll() {
+        List<PooledTransport> all = new ArrayList<>();
+        idle.drainTo(all);
+        all.forEach(MailDeliveryEngine::closeQuietly);
+    }
+}
@@ -0,0 +1,237 @@
+package com.projectgo.barber_booking.service;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * ส่งไฟล์สื่อ (รูปโปรไฟล์ ฯลฯ) จากดิสก์แบบ zero-copy
+ * - Tomcat รองรับ sendfile → ส่งต่อให้ connector ผ่าน request attribute (kernel คัดลอกเอง ไม่ผ่าน heap)
+ *   ไม่รองรับ → FileChannel.transferTo ไปยัง output stream
+ * - รองรับ Range (ช่วงเดียว: bytes=a-b, a-, -n), If-None-Match / ETag, HEAD
+ * - metadata (ขนาด, mtime, ETag) เก็บใน LRU จำกัดจำนวน → request ซ้ำไม่ต้อง stat ดิสก์
+ *   ไฟล์ที่ไม่พบจะถูกจำไว้สั้น ๆ (negative TTL) เพราะรูปย่ออาจถูกสร้างตามมา
+ */
+@Service
+public class MediaFileServer {
+
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
+
+    private static final Pattern RANGE = Pattern.compile("^bytes=(\\d*)-(\\d*)$");
+    private static final Pattern CONTENT_HASH = Pattern.compile("^([0-9a-f]{64})\\.[a-z]+$");
+
+    private final long ttlMillis;
+    private final long negativeTtlMillis;
+    private final Map<Path, Meta> metaCache;
+
+    public MediaFileServer(@Value("${media.meta-cache.max-entries:10000}") int maxEntries,
+                           @Value("${media.meta-cache.ttl-seconds:60}") long ttlSeconds,
+                           @Value("${media.meta-cache.negative-ttl-seconds:5}") long negativeTtlSeconds) {
+        this.ttlMillis = ttlSeconds * 1000;
+        this.negativeTtlMillis = negativeTtlSeconds * 1000;
+        int cap = Math.max(16, maxEntries);
+        this.metaCache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Path, Meta> eldest) {
+                return size() > cap;
+            }
+        };
+    }
+
+    /** metadata ของไฟล์ (exists = false คือไม่พบ) */
+    public record Meta(boolean exists, long size, long lastModified, String etag, long loadedAt) {}
+
+    /** มีไฟล์นี้ไหม (ตอบจาก cache ถ้ายังไม่หมดอายุ) */
+    public boolean exists(Path file) {
+        return meta(file).exists();
+    }
+
+    public Meta meta(Path file) {
+        long now = System.currentTimeMillis();
+        Meta m;
+        synchronized (metaCache) {
+            m = metaCache.get(file);
+        }
+        if (m != null && now - m.loadedAt() < (m.exists() ? ttlMillis : negativeTtlMillis)) {
+            return m;
+        }
+        m = load(file, now);
+        synchronized (metaCache) {
+            metaCache.put(file, m);
+        }
+        return m;
+    }
+
+    private static Meta load(Path file, long now) {
+        try {
+            BasicFileAttributes a = Files.readAttributes(file, BasicFileAttributes.class);
+            if (!a.isRegularFile()) return new Meta(false, 0, 0, null, now);
+            long mtime = a.lastModifiedTime().toMillis();
+            return new Meta(true, a.size(), mtime, etagOf(file, a.size(), mtime), now);
+        } catch (IOException ex) {
+            return new Meta(false, 0, 0, null, now);
+        }
+    }
+
+    /** ชื่อไฟล์เป็น content hash → ใช้ hash เป็น ETag ตรง ๆ, ไม่งั้นใช้ mtime + size */
+    private static String etagOf(Path file, long size, long mtime) {
+        Matcher h = CONTENT_HASH.matcher(file.getFileName().toString());
+        if (h.matches()) return "\"" + h.group(1) + "\"";
+        return "\"" + Long.toHexString(mtime) + "-" + Long.toHexString(size) + "\"";
+    }
+
+    /**
+     * ส่งไฟล์ตาม request (GET/HEAD) — คืน false ถ้าไม่พบไฟล์ (ผู้เรียกตัดสินใจเองว่าจะ 404 หรือ fallback)
+     */
+    public boolean serve(Path file, String contentType, CacheControl cacheControl,
+                         HttpServletRequest req, HttpServletResponse res) throws IOException {
+        Meta m = meta(file);
+        if (!m.exists()) return false;
+
+        res.setHeader(HttpHeaders.ETAG, m.etag());
+        res.setDateHeader(HttpHeaders.LAST_MODIFIED, m.lastModified());
+        res.setHeader(HttpHeaders.CACHE_CONTROL, cacheControl.getHeaderValue());
+        res.setHeader(HttpHeaders.ACCEPT_RANGES, "bytes");
+
+        if (etagMatches(req.getHeader(HttpHeaders.IF_NONE_MATCH), m.etag())) {
+            res.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+            return true;
+        }
+
+        long start = 0, end = m.size() - 1; // end รวมตัวมันเอง
+        String range = req.getHeader(HttpHeaders.RANGE);
+        String ifRange = req.getHeader(HttpHeaders.IF_RANGE);
+        boolean partial = false;
+        if (range != null && (ifRange == null || ifRange.equals(m.etag()))) {
+            ByteRange r = parseRange(range, m.size());
+            if (r instanceof ByteRange.Unsatisfiable) {
+                res.setHeader(HttpHeaders.CONTENT_RANGE, "bytes */" + m.size());
+                res.sendError(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+                return true;
+            }
+            if (r instanceof ByteRange.Part p) {
+                start = p.start();
+                end = p.end();
+                partial = true;
+            }
+        }
+
+        long length = end - start + 1;
+        res.setContentType(contentType);
+        res.setContentLengthLong(length);
+        if (partial) {
+            res.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+            res.setHeader(HttpHeaders.CONTENT_RANGE, "bytes " + start + "-" + end + "/" + m.size());
+        } else {
+            res.setStatus(HttpServletResponse.SC_OK);
+        }
+        if ("HEAD".equalsIgnoreCase(req.getMethod()) || length == 0) return true;
+
+        if (Boolean.TRUE.equals(req.getAttribute(SENDFILE_SUPPORT))) {
+            // Tomcat ส่งไฟล์เองหลังจบ request (sendfile ของ OS)
+            req.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            req.setAttribute(SENDFILE_START, start);
+            req.setAttribute(SENDFILE_END, end + 1);
+            return true;
+        }
+
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            OutputStream os = res.getOutputStream();
+            WritableByteChannel out = Channels.newChannel(os);
+            long pos = start, remaining = length;
+            while (remaining > 0) {
+                long n = in.transferTo(pos, remaining, out);
+                if (n <= 0) break;
+                pos += n;
+                remaining -= n;
+            }
+            os.flush();
+        } catch (NoSuchFileException gone) {
+            invalidate(file);
+            throw gone;
+        }
+        return true;
+    }
+
+    public void invalidate(Path file) {
+        synchronized (metaCache) {
+            metaCache.remove(file);
+        }
+    }
+
+    private static boolean etagMatches(String header, String etag) {
+        if (header == null) return false;
+        if (header.trim().equals("*")) return true;
+        for (String part : header.split(",")) {
+            String t = part.trim();
+            if (t.startsWith("W/")) t = t.substring(2);
+            if (t.equals(etag)) return true;
+        }
+        return false;
+    }
+
+    /** ผลของการอ่าน Range header */
+    sealed interface ByteRange {
+        /** ไม่ใช้ range — ส่งทั้งไฟล์ (header เพี้ยน หรือขอหลายช่วง) */
+        ByteRange FULL = new Full();
+        /** ช่วงอยู่นอกไฟล์ → 416 */
+        ByteRange UNSATISFIABLE = new Unsatisfiable();
+
+        static ByteRange of(long start, long end) {
+            return new Part(start, end);
+        }
+
+        record Full() implements ByteRange {}
+
+        record Unsatisfiable() implements ByteRange {}
+
+        /** ช่วง [start, end] (end รวมตัวมันเอง) */
+        record Part(long start, long end) implements ByteRange {}
+    }
+
+    static ByteRange parseRange(String header, long size) {
+        Matcher m = RANGE.matcher(header.trim());
+        if (!m.matches()) return ByteRange.FULL; // รวมถึง multi-range → ส่งทั้งไฟล์ (RFC 9110 อนุญาต)
+        String a = m.group(1), b = m.group(2);
+        if (a.isEmpty() && b.isEmpty()) return ByteRange.FULL;
+        try {
+            long start, end;
+            if (a.isEmpty()) {            // bytes=-n : n ไบต์สุดท้าย
+                long n = Long.parseLong(b);
+                if (n == 0) return ByteRange.UNSATISFIABLE;
+                start = Math.max(0, size - n);
+                end = size - 1;
+            } else {
+                start = Long.parseLong(a);
+                if (start >= size) return ByteRange.UNSATISFIABLE;
+                if (!b.isEmpty() && Long.parseLong(b) < start) return ByteRange.FULL; // a > b: header ใช้ไม่ได้
+                end = b.isEmpty() ? size - 1 : Math.min(Long.parseLong(b), size - 1);
+            }
+            if (start >= size) return ByteRange.UNSATISFIABLE;
+            return ByteRange.of(start, end);
+        } catch (NumberFormatException tooBig) {
+            return ByteRange.FULL;
+        }
+    }
+}
@@ -0,0 +1,276 @@
+package com.projectgo.barber_booking.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectgo.barber_booking.model.Booking;
+import com.projectgo.barber_booking.service.NotificationOutbox.Payload;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mail.SimpleMailMessage;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * ดึงงานจาก notification_outbox ไปส่งเบื้องหลัง
+ * - claim เป็นชุดด้วย FOR UPDATE SKIP LOCKED (หลาย instance ดึงพร้อมกันได้ไม่ชนกัน)
+ * - อีเมลในรอบเดียวกันส่งเป็นชุดบน SMTP connection ที่เปิดค้างไว้ (MailDeliveryEngine)
+ *   บน thread pool ขนาดจำกัด และจำกัดจำนวนชุดที่ส่งพร้อมกัน (Semaphore)
+ * - LINE ฝากให้ LineAlertClient แบบไม่บล็อก (timeout + circuit breaker + รวมเป็น digest)
+ * - ล้มเหลว → retry แบบ exponential backoff, ครบ max-attempts → DEAD (dead-letter ให้ดูย้อนหลัง)
+ * - งานที่ค้าง SENDING เกิน lease (เช่น แอปดับกลางทาง) จะถูก claim ใหม่
+ */
+@Service
+public class NotificationDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+    private static final String CLAIM_SQL = """
+            update notification_outbox o
+               set status = 'SENDING',
+                   attempts = o.attempts + 1,
+                   locked_until = now() + make_interval(secs => ?)
+             where o.id in (
+                   select id from notification_outbox
+                    where (status = 'PENDING' and next_attempt_at <= now())
+                       or (status = 'SENDING' and locked_until < now())
+                    order by next_attempt_at, id
+                    limit ?
+                    for update skip locked)
+            returning o.id, o.channel, o.event, o.payload, o.attempts
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final NotificationService notifications;
+    private final MailDeliveryEngine mailEngine;
+    private final LineAlertClient lineClient;
+    private final ObjectMapper objectMapper;
+
+    private final int batchSize;
+    private final int maxAttempts;
+    private final long backoffBaseSeconds;
+    private final long backoffMaxSeconds;
+    private final long leaseSeconds;
+
+    private final ThreadPoolExecutor executor;
+    private final Semaphore emailPermits;
+
+    public NotificationDispatcher(JdbcTemplate jdbc,
+                                  NotificationService notifications,
+                                  MailDeliveryEngine mailEngine,
+                                  LineAlertClient lineClient,
+                                  ObjectMapper objectMapper,
+                                  @Value("${notify.outbox.batch-size:20}") int batchSize,
+                                  @Value("${notify.outbox.max-attempts:8}") int maxAttempts,
+                                  @Value("${notify.outbox.backoff-base-seconds:30}") long backoffBaseSeconds,
+                                  @Value("${notify.outbox.backoff-max-seconds:3600}") long backoffMaxSeconds,
+                                  @Value("${notify.outbox.lease-seconds:300}") long leaseSeconds,
+                                  @Value("${notify.outbox.threads:4}") int threads,
+                                  @Value("${notify.outbox.email-concurrency:2}") int emailConcurrency) {
+        this.jdbc = jdbc;
+        this.notifications = notifications;
+        this.mailEngine = mailEngine;
+        this.lineClient = lineClient;
+        this.objectMapper = objectMapper;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.backoffBaseSeconds = Math.max(1, backoffBaseSeconds);
+        this.backoffMaxSeconds = Math.max(this.backoffBaseSeconds, backoffMaxSeconds);
+        this.leaseSeconds = Math.max(30, leaseSeconds);
+
+        AtomicInteger seq = new AtomicInteger();
+        int n = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(this.batchSize * 2),
+                r -> {
+                    Thread t = new Thread(r, "notify-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        this.emailPermits = new Semaphore(Math.max(1, emailConcurrency));
+    }
+
+    private record Row(long id, String channel, String event, String payload, int attempts) {}
+
+    /** รอบดึงงาน: claim เท่าที่คิวของ executor ยังรับไหว แล้วส่งต่อให้ worker */
+    @Scheduled(fixedDelayString = "${notify.outbox.poll-interval-ms:2000}",
+               initialDelayString = "${notify.outbox.initial-delay-ms:10000}")
+    public void drain() {
+        int capacity = Math.min(batchSize, executor.getQueue().remainingCapacity());
+        if (capacity <= 0) return;
+
+        List<Row> batch;
+        try {
+            batch = jdbc.query(CLAIM_SQL,
+                    (rs, i) -> new Row(rs.getLong("id"), rs.getString("channel"), rs.getString("event"),
+                            rs.getString("payload"), rs.getInt("attempts")),
+                    leaseSeconds, capacity);
+        } catch (Exception ex) {
+            log.warn("outbox claim ล้มเหลว: {}", ex.getMessage());
+            return;
+        }
+
+        // อีเมลทั้งชุดไปเป็นงานเดียว (ส่งบน SMTP connection เดียว) ส่วน LINE ฝากเข้ารอบ digest แบบไม่บล็อก
+        List<Row> emails = new ArrayList<>();
+        for (Row row : batch) {
+            switch (row.channel()) {
+                case NotificationOutbox.CHANNEL_EMAIL -> emails.add(row);
+                case NotificationOutbox.CHANNEL_LINE -> deliverLine(row);
+                default -> markDead(row, "unknown channel " + row.channel());
+            }
+        }
+        if (!emails.isEmpty()) {
+            submit(emails, () -> deliverEmails(emails));
+        }
+    }
+
+    private void submit(List<Row> rows, Runnable task) {
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException full) {
+            // คิวเต็ม: คืนงานให้รอบถัดไป (ไม่นับเป็นความพยายาม)
+            jdbc.batchUpdate("update notification_outbox set status='PENDING', attempts=attempts-1, locked_until=null where id=?",
+                    rows.stream().map(r -> new Object[]{r.id()}).toList());
+        }
+    }
+
+    /** ลบงานที่ส่งสำเร็จเก่ากว่า N วัน (DEAD เก็บไว้ให้ตรวจสอบ) */
+    @Scheduled(cron = "${notify.outbox.purge-cron:0 30 3 * * *}")
+    public void purgeSent() {
+        int n = jdbc.update("delete from notification_outbox where status='SENT' and sent_at < now() - interval '7 days'");
+        if (n > 0) log.info("outbox purge: ลบงานที่ส่งแล้ว {} รายการ", n);
+    }
+
+    /** LINE: ฝากเข้ารอบ digest ของ LineAlertClient แบบไม่บล็อก แล้วอัปเดตสถานะเมื่อผลส่งจริงกลับมา */
+    private void deliverLine(Row row) {
+        Optional<String> msg;
+        try {
+            Payload p = objectMapper.readValue(row.payload(), Payload.class);
+            Booking b = p.toBooking();
+            msg = switch (row.event()) {
+                case NotificationOutbox.EVENT_CREATED -> notifications.renderNewBookingAlert(b);
+                case NotificationOutbox.EVENT_STATUS_CHANGED ->
+                        notifications.renderStatusChangeAlert(b, p.oldStatus(), p.newStatus());
+                default -> throw new IllegalArgumentException("unknown event " + row.event());
+            };
+        } catch (Exception ex) {
+            fail(row, ex);
+            return;
+        }
+        if (msg.isEmpty() || !lineClient.isConfigured()) {
+            markSent(List.of(row.id())); // ปิด LINE หรือไม่มี token → ไม่มีอะไรต้องส่ง
+            return;
+        }
+        String kind = NotificationOutbox.EVENT_CREATED.equals(row.event()) ? "จองใหม่" : "เปลี่ยนสถานะ";
+        lineClient.submit(kind, msg.get()).whenComplete((ok, ex) -> {
+            if (ex == null) markSent(List.of(row.id()));
+            else fail(row, ex instanceof Exception e ? e : new IllegalStateException(ex));
+        });
+    }
+
+    /** ส่งอีเมลทั้งชุด: render ทีละแถว แล้วส่งรวดเดียวผ่าน MailDeliveryEngine (ผลล้มเหลวแยกรายฉบับ) */
+    private void deliverEmails(List<Row> rows) {
+        try {
+            emailPermits.acquire();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+            return;
+        }
+        try {
+            List<Row> toSend = new ArrayList<>(rows.size());
+            List<SimpleMailMessage> messages = new ArrayList<>(rows.size());
+            List<Long> done = new ArrayList<>(rows.size());
+
+            for (Row row : rows) {
+                try {
+                    Optional<SimpleMailMessage> m = renderEmail(row);
+                    if (m.isPresent()) {
+                        toSend.add(row);
+                        messages.add(m.get());
+                    } else {
+                        done.add(row.id()); // ไม่มีอะไรต้องส่ง (ปิดอีเมล/ลูกค้าไม่มีอีเมล)
+                    }
+                } catch (Exception ex) {
+                    fail(row, ex);
+                }
+            }
+
+            Map<Integer, Exception> failures = mailEngine.sendBatch(messages);
+            for (int i = 0; i < toSend.size(); i++) {
+                Exception ex = failures.get(i);
+                if (ex == null) done.add(toSend.get(i).id());
+                else fail(toSend.get(i), ex);
+            }
+            markSent(done);
+        } finally {
+            emailPermits.release();
+        }
+    }
+
+    private Optional<SimpleMailMessage> renderEmail(Row row) throws Exception {
+        Payload p = objectMapper.readValue(row.payload(), Payload.class);
+        Booking b = p.toBooking();
+        return switch (row.event()) {
+            case NotificationOutbox.EVENT_CREATED -> notifications.renderBookingConfirmation(b);
+            case NotificationOutbox.EVENT_STATUS_CHANGED ->
+                    notifications.renderStatusChangeEmail(b, p.oldStatus(), p.newStatus());
+            default -> throw new IllegalArgumentException("unknown event " + row.event());
+        };
+    }
+
+    private void markSent(List<Long> ids) {
+        if (ids.isEmpty()) return;
+        jdbc.batchUpdate("update notification_outbox set status='SENT', sent_at=now(), locked_until=null, last_error=null where id=?",
+                ids.stream().map(id -> new Object[]{id}).toList());
+    }
+
+    private void fail(Row row, Exception ex) {
+        String err = String.valueOf(ex.getMessage());
+        if (row.attempts() >= maxAttempts) {
+            markDead(row, err);
+            return;
+        }
+        long delay = backoffSeconds(row.attempts());
+        jdbc.update("""
+                update notification_outbox
+                   set status='PENDING', locked_until=null, last_error=?,
+                       next_attempt_at = now() + make_interval(secs => ?)
+                 where id=?
+                """, err, delay, row.id());
+        log.warn("ส่ง {} ล้มเหลว (outbox #{}, ครั้งที่ {}), จะลองใหม่ใน {} วินาที: {}",
+                row.channel(), row.id(), row.attempts(), delay, err);
+    }
+
+    private void markDead(Row row, String err) {
+        jdbc.update("update notification_outbox set status='DEAD', locked_until=null, last_error=? where id=?",
+                err, row.id());
+        log.error("ส่ง {} ไม่สำเร็จถาวร (outbox #{}): {}", row.channel(), row.id(), err);
+    }
+
+    /** base * 2^(n-1) จำกัดเพดาน + jitter ±20% กันทุกงาน retry พร้อมกัน */
+    private long backoffSeconds(int attempts) {
+        long exp = backoffBaseSeconds << Math.min(attempts - 1, 20);
+        long capped = Math.min(exp, backoffMaxSeconds);
+        long jitter = (long) (capped * 0.2 * (ThreadLocalRandom.current().nextDouble() * 2 - 1));
+        return Math.max(1, capped + jitter);
+    }
+
+    @PreDestroy
+    void shutdown() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+}
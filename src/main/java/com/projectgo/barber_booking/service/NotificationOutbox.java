@@ -0,0 +1,132 @@
+package com.projectgo.barber_booking.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.projectgo.barber_booking.model.Booking;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * เขียนงานแจ้งเตือนลงตาราง notification_outbox
+ * ต้องถูกเรียกภายใน transaction ของการเปลี่ยนแปลง booking (MANDATORY) — ถ้า booking rollback งานแจ้งเตือนก็หายไปด้วย
+ * การส่งจริงเป็นหน้าที่ของ NotificationDispatcher
+ */
+@Service
+public class NotificationOutbox {
+
+    public static final String CHANNEL_EMAIL = "EMAIL";
+    public static final String CHANNEL_LINE = "LINE";
+
+    public static final String EVENT_CREATED = "BOOKING_CREATED";
+    public static final String EVENT_STATUS_CHANGED = "STATUS_CHANGED";
+
+    private static final String INSERT_SQL =
+            "insert into notification_outbox (channel, event, booking_id, payload) values (?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final ObjectMapper objectMapper;
+
+    @Value("${notify.email.enabled:false}")
+    private boolean emailEnabled;
+
+    @Value("${notify.line.enabled:false}")
+    private boolean lineEnabled;
+
+    public NotificationOutbox(JdbcTemplate jdbc, ObjectMapper objectMapper) {
+        this.jdbc = jdbc;
+        this.objectMapper = objectMapper;
+    }
+
+    /** snapshot ของ booking ตอนเกิดเหตุการณ์ (ไม่ต้องอ่าน bookings ซ้ำตอนส่ง และยังส่งได้แม้ booking ถูกลบ) */
+    public record Payload(Long id, String username, String service, String barber,
+                          LocalDate date, LocalTime time, String note, String status,
+                          String oldStatus, String newStatus) {
+
+        static Payload of(Booking b, String oldStatus, String newStatus) {
+            return new Payload(b.getId(), b.getUsername(), b.getService(), b.getBarber(),
+                    b.getDate(), b.getTime(), b.getNote(), b.getStatus(), oldStatus, newStatus);
+        }
+
+        public Booking toBooking() {
+            Booking b = new Booking();
+            b.setId(id);
+            b.setUsername(username);
+            b.setService(service);
+            b.setBarber(barber);
+            b.setDate(date);
+            b.setTime(time);
+            b.setNote(note);
+            b.setStatus(status);
+            return b;
+        }
+    }
+
+    /** จองใหม่: อีเมลยืนยันถึงลูกค้า + LINE แจ้งร้าน */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueCreated(Booking b) {
+        enqueue(EVENT_CREATED, b, null, null);
+    }
+
+    /** เปลี่ยนสถานะ: อีเมลถึงลูกค้า + LINE แจ้งร้าน */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueStatusChange(Booking b, String oldStatus, String newStatus) {
+        enqueue(EVENT_STATUS_CHANGED, b, oldStatus, newStatus);
+    }
+
+    /**
+     * เปลี่ยนสถานะหลายรายการพร้อมกัน: ทุกช่องทางของทุกรายการเขียนใน batch เดียว
+     * oldStatuses.get(i) คู่กับ after.get(i); dispatcher จะหยิบไปส่งเป็นชุดผ่าน SMTP connection เดียวกัน
+     * และ LINE จะถูกรวมเป็น digest
+     */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueStatusChanges(List<Booking> after, List<String> oldStatuses) {
+        List<String> channels = channels();
+        if (channels.isEmpty() || after.isEmpty()) return;
+
+        List<Object[]> rows = new ArrayList<>(after.size() * channels.size());
+        for (int i = 0; i < after.size(); i++) {
+            Booking b = after.get(i);
+            String json = toJson(Payload.of(b, oldStatuses.get(i), b.getStatus()));
+            for (String ch : channels) {
+                rows.add(new Object[]{ch, EVENT_STATUS_CHANGED, b.getId(), json});
+            }
+        }
+        jdbc.batchUpdate(INSERT_SQL, rows);
+    }
+
+    /** ทุกช่องทางของเหตุการณ์เดียว ไปใน batch เดียว (1 round-trip) */
+    private void enqueue(String event, Booking b, String oldStatus, String newStatus) {
+        List<String> channels = channels();
+        if (channels.isEmpty()) return;
+
+        String json = toJson(Payload.of(b, oldStatus, newStatus));
+        List<Object[]> rows = new ArrayList<>(channels.size());
+        for (String ch : channels) {
+            rows.add(new Object[]{ch, event, b.getId(), json});
+        }
+        jdbc.batchUpdate(INSERT_SQL, rows);
+    }
+
+    private List<String> channels() {
+        List<String> channels = new ArrayList<>(2);
+        if (emailEnabled) channels.add(CHANNEL_EMAIL);
+        if (lineEnabled) channels.add(CHANNEL_LINE);
+        return channels;
+    }
+
+    private String toJson(Payload p) {
+        try {
+            return objectMapper.writeValueAsString(p);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("serialize outbox payload failed", e);
+        }
+    }
+}
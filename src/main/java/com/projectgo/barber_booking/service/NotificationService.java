@@ -2,31 +2,22 @@ package com.projectgo.barber_booking.service;
 
 import com.projectgo.barber_booking.model.Booking;
 import com.projectgo.barber_booking.model.User;
-import com.projectgo.barber_booking.repository.UserRepository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.http.HttpEntity;
-import org.springframework.http.HttpHeaders;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
 
-import java.net.URLEncoder;
-import java.nio.charset.StandardCharsets;
 import java.util.Optional;
 
+/**
+ * สร้างข้อความแจ้งเตือน (EMAIL / LINE)
+ * ถูกเรียกจาก NotificationDispatcher เท่านั้น — ฝั่ง request ให้คิวงานผ่าน NotificationOutbox
+ * - อีเมล: render* คืนข้อความ แล้ว dispatcher ส่งเป็นชุดผ่าน MailDeliveryEngine
+ * - LINE: render* คืนข้อความ แล้ว dispatcher ฝากให้ LineAlertClient (รวมเป็น digest + circuit breaker)
+ */
 @Service
 public class NotificationService {
 
-    private static final Logger log = LoggerFactory.getLogger(NotificationService.class);
-
-    private final JavaMailSender mailSender;
-    private final UserRepository userRepo;
-    private final RestTemplate rest = new RestTemplate();
+    private final UserCache userCache;
 
     @Value("${notify.email.enabled:false}")
     private boolean emailEnabled;
@@ -34,21 +25,17 @@ public class NotificationService {
     @Value("${notify.line.enabled:false}")
     private boolean lineEnabled;
 
-    @Value("${notify.line.token:}")
-    private String lineToken;
-
     // ผู้ส่งอีเมล (ไม่ตั้งจะ fallback เป็น spring.mail.username)
     @Value("${app.mail.from:${spring.mail.username}}")
     private String fromAddress;
 
-    public NotificationService(JavaMailSender mailSender, UserRepository userRepo) {
-        this.mailSender = mailSender;
-        this.userRepo = userRepo;
+    public NotificationService(UserCache userCache) {
+        this.userCache = userCache;
     }
 
-    /** แจ้งที่ร้านผ่าน LINE Notify เมื่อมีการจองใหม่ */
-    public void sendNewBookingAlert(Booking b) {
-        if (!lineEnabled || lineToken == null || lineToken.isBlank()) return;
+    /** ข้อความ LINE แจ้งร้านเมื่อมีการจองใหม่ */
+    public Optional<String> renderNewBookingAlert(Booking b) {
+        if (!lineEnabled) return Optional.empty();
 
         String msg = """
                 🔔 มีการจองใหม่
@@ -65,16 +52,16 @@ public class NotificationService {
                 b.getTime(),
                 nullSafe(b.getStatus())
         );
-        sendLineNotify(msg);
+        return Optional.of(msg);
     }
 
-    /** ส่งอีเมลยืนยันทันทีหลังสร้างการจอง */
-    public void sendBookingConfirmation(Booking b) {
-        if (!emailEnabled) return;
-        Optional<User> ou = userRepo.findByUsername(b.getUsername());
-        ou.map(User::getEmail)
+    /** อีเมลยืนยันหลังสร้างการจอง (empty = ไม่ต้องส่ง เช่น ปิดอีเมลหรือลูกค้าไม่มีอีเมล) */
+    public Optional<SimpleMailMessage> renderBookingConfirmation(Booking b) {
+        if (!emailEnabled) return Optional.empty();
+        Optional<User> ou = userCache.find(b.getUsername());
+        return ou.map(User::getEmail)
           .filter(e -> e != null && !e.isBlank())
-          .ifPresent(email -> {
+          .map(email -> {
               String subject = "[ร้านตัดผม] ยืนยันการจองของคุณ";
               String text = """
                       สวัสดีคุณ %s,
@@ -98,110 +85,79 @@ public class NotificationService {
                       nullSafe(b.getNote()),
                       nullSafe(b.getStatus())
               );
-              sendEmail(email, subject, text);
+              return mail(email, subject, text);
           });
     }
 
-    /** ส่งอีเมลให้ลูกค้า + LINE ให้ร้าน เมื่อมีการเปลี่ยนสถานะ */
-    public void sendStatusChange(Booking b, String oldStatus, String newStatus) {
-        // LINE ให้ร้าน
-        if (lineEnabled && lineToken != null && !lineToken.isBlank()) {
-            String msg = """
-                    🔄 เปลี่ยนสถานะการจอง
-                    • ID: %d
-                    • ผู้ใช้: %s
-                    • บริการ: %s
-                    • ช่าง: %s
-                    • วันที่: %s เวลา: %s
-                    • %s → %s
-                    """.formatted(
-                    b.getId(),
-                    nullSafe(b.getUsername()),
-                    nullSafe(b.getService()),
-                    nullSafe(b.getBarber()),
-                    b.getDate(),
-                    b.getTime(),
-                    nullSafe(oldStatus),
-                    nullSafe(newStatus)
-            );
-            sendLineNotify(msg);
-        }
-
-        // Email ให้ลูกค้า
-        if (emailEnabled) {
-            Optional<User> ou = userRepo.findByUsername(b.getUsername());
-            ou.map(User::getEmail)
-              .filter(e -> e != null && !e.isBlank())
-              .ifPresent(email -> {
-                  String subject = "[ร้านตัดผม] อัปเดตสถานะการจอง: " + newStatus;
-                  String text = """
-                          สวัสดีคุณ %s,
-
-                          สถานะการจองของคุณถูกเปลี่ยนเป็น: %s
-
-                          รายละเอียดการจอง:
-                          • บริการ: %s
-                          • ช่าง: %s
-                          • วันที่: %s เวลา: %s
-                          • หมายเหตุ: %s
-
-                          ขอบคุณที่ใช้บริการครับ/ค่ะ
-                          """.formatted(
-                          nullSafeName(ou.get()),
-                          newStatus,
-                          nullSafe(b.getService()),
-                          nullSafe(b.getBarber()),
-                          b.getDate(),
-                          b.getTime(),
-                          nullSafe(b.getNote())
-                  );
-                  sendEmail(email, subject, text);
-              });
-        }
+    /** ข้อความ LINE แจ้งร้าน เมื่อมีการเปลี่ยนสถานะ */
+    public Optional<String> renderStatusChangeAlert(Booking b, String oldStatus, String newStatus) {
+        if (!lineEnabled) return Optional.empty();
+        String msg = """
+                🔄 เปลี่ยนสถานะการจอง
+                • ID: %d
+                • ผู้ใช้: %s
+                • บริการ: %s
+                • ช่าง: %s
+                • วันที่: %s เวลา: %s
+                • %s → %s
+                """.formatted(
+                b.getId(),
+                nullSafe(b.getUsername()),
+                nullSafe(b.getService()),
+                nullSafe(b.getBarber()),
+                b.getDate(),
+                b.getTime(),
+                nullSafe(oldStatus),
+                nullSafe(newStatus)
+        );
+        return Optional.of(msg);
     }
 
-    /* ---------------- helpers ---------------- */
+    /** อีเมลให้ลูกค้า เมื่อมีการเปลี่ยนสถานะ */
+    public Optional<SimpleMailMessage> renderStatusChangeEmail(Booking b, String oldStatus, String newStatus) {
+        if (!emailEnabled) return Optional.empty();
+        Optional<User> ou = userCache.find(b.getUsername());
+        return ou.map(User::getEmail)
+          .filter(e -> e != null && !e.isBlank())
+          .map(email -> {
+              String subject = "[ร้านตัดผม] อัปเดตสถานะการจอง: " + newStatus;
+              String text = """
+                      สวัสดีคุณ %s,
 
-    private void sendEmail(String to, String subject, String text) {
-        try {
-            if (to == null || to.isBlank()) {
-                log.warn("ข้ามการส่งอีเมล: address ว่าง");
-                return;
-            }
-            SimpleMailMessage m = new SimpleMailMessage();
-            if (fromAddress != null && !fromAddress.isBlank()) {
-                m.setFrom(fromAddress);
-            }
-            m.setTo(to);
-            m.setSubject(subject);
-            m.setText(text);
-            mailSender.send(m);
-            log.info("✅ ส่งอีเมลไปยัง {}", to);
-        } catch (Exception ex) {
-            log.warn("ส่งอีเมลล้มเหลวไปยัง {}: {}", to, ex.getMessage());
-        }
+                      สถานะการจองของคุณถูกเปลี่ยนเป็น: %s
+
+                      รายละเอียดการจอง:
+                      • บริการ: %s
+                      • ช่าง: %s
+                      • วันที่: %s เวลา: %s
+                      • หมายเหตุ: %s
+
+                      ขอบคุณที่ใช้บริการครับ/ค่ะ
+                      """.formatted(
+                      nullSafeName(ou.get()),
+                      newStatus,
+                      nullSafe(b.getService()),
+                      nullSafe(b.getBarber()),
+                      b.getDate(),
+                      b.getTime(),
+                      nullSafe(b.getNote())
+              );
+              return mail(email, subject, text);
+          });
     }
 
-    private void sendLineNotify(String message) {
-        try {
-            HttpHeaders headers = new HttpHeaders();
-            headers.setContentType(MediaType.APPLICATION_FORM_URLENCODED);
-            headers.setBearerAuth(lineToken);
-
-            // เข้ารหัสสำหรับ x-www-form-urlencoded (ขึ้นบรรทัดใช้ %0A)
-            String encoded = URLEncoder.encode(message, StandardCharsets.UTF_8);
-            String body = "message=" + encoded;
-
-            HttpEntity<String> req = new HttpEntity<>(body, headers);
-            ResponseEntity<String> res = rest.postForEntity(
-                    "https://notify-api.line.me/api/notify", req, String.class);
-
-            if (!res.getStatusCode().is2xxSuccessful()) {
-                log.warn("ส่ง LINE Notify ไม่สำเร็จ: HTTP {} | {}", res.getStatusCode(), res.getBody());
-            }
-        } catch (Exception ex) {
-            log.warn("ส่ง LINE Notify ล้มเหลว: {}", ex.getMessage());
+    /* ---------------- helpers ---------------- */
+
+    /** ประกอบอีเมล — การส่งจริงทำเป็นชุดโดย MailDeliveryEngine */
+    private SimpleMailMessage mail(String to, String subject, String text) {
+        SimpleMailMessage m = new SimpleMailMessage();
+        if (fromAddress != null && !fromAddress.isBlank()) {
+            m.setFrom(fromAddress);
         }
+        m.setTo(to);
+        m.setSubject(subject);
+        m.setText(text);
+        return m;
     }
 
     private String nullSafe(Object o) { return o == null ? "-" : o.toString(); }
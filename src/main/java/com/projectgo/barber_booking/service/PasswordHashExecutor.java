@@ -0,0 +1,143 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.exception.LoginThrottledException;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * BCrypt สำหรับการล็อกอิน ที่รันบน thread pool ขนาดคงที่ แยกจาก Tomcat
+ * - hash หนึ่งครั้งกิน CPU ~100ms → จำกัดจำนวนที่ทำพร้อมกัน (auth.hash.threads) ไม่ให้แย่ง CPU หน้าอื่น
+ * - คิวจำกัด (auth.hash.queue): เต็มแล้วปฏิเสธทันที, รอนานเกิน auth.hash.timeout-ms ก็ปฏิเสธ
+ *   → LoginThrottledException (ล็อกอินได้ 429) แทนที่จะกอง request ไว้
+ * - การปฏิเสธมีเฉพาะ loginEncoder() ที่ DaoAuthenticationProvider ใช้; สมัครสมาชิก / เปลี่ยนรหัส / initAdmin
+ *   ใช้ encoder() (BCrypt strength เดียวกันบน thread ของผู้เรียก) ซึ่งไม่โยน AuthenticationException
+ * - เก็บสถิติเวลา hash / ความยาวคิว ให้ดูที่ /api/admin/stats/login
+ */
+@Service
+public class PasswordHashExecutor {
+
+    private final PasswordEncoder bcrypt;
+    private final PasswordEncoder loginEncoder = new PasswordEncoder() {
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return run(() -> bcrypt.encode(rawPassword));
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return run(() -> bcrypt.matches(rawPassword, encodedPassword));
+        }
+
+        @Override
+        public boolean upgradeEncoding(String encodedPassword) {
+            return bcrypt.upgradeEncoding(encodedPassword);
+        }
+    };
+    private final ThreadPoolExecutor executor;
+    private final long timeoutMillis;
+
+    private final AtomicLong hashes = new AtomicLong();
+    private final AtomicLong hashNanos = new AtomicLong();
+    private final AtomicLong maxHashNanos = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong timedOut = new AtomicLong();
+
+    public PasswordHashExecutor(@Value("${auth.hash.strength:10}") int strength,
+                                @Value("${auth.hash.threads:2}") int threads,
+                                @Value("${auth.hash.queue:32}") int queue,
+                                @Value("${auth.hash.timeout-ms:3000}") long timeoutMillis) {
+        this.bcrypt = new BCryptPasswordEncoder(strength);
+        this.timeoutMillis = Math.max(100, timeoutMillis);
+        AtomicInteger seq = new AtomicInteger();
+        int n = Math.max(1, threads);
+        this.executor = new ThreadPoolExecutor(n, n, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(Math.max(1, queue)),
+                r -> {
+                    Thread t = new Thread(r, "bcrypt-" + seq.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+    }
+
+    /** สถิติปัจจุบัน (เวลาเป็นมิลลิวินาที) */
+    public record Stats(int threads, int active, int queued, int queueCapacity,
+                        long hashes, double avgHashMs, double maxHashMs, double avgWaitMs,
+                        long rejected, long timedOut) {}
+
+    /** ใช้กับ DaoAuthenticationProvider เท่านั้น: hash บน pool, คิวเต็ม/รอนาน → LoginThrottledException */
+    public PasswordEncoder loginEncoder() {
+        return loginEncoder;
+    }
+
+    /** PasswordEncoder ของส่วนอื่นในแอป: hash บน thread ผู้เรียก ไม่ถูกปฏิเสธ */
+    public PasswordEncoder encoder() {
+        return bcrypt;
+    }
+
+    private <T> T run(Callable<T> hash) {
+        long queuedAt = System.nanoTime();
+        Future<T> f;
+        try {
+            f = executor.submit(() -> {
+                long start = System.nanoTime();
+                waitNanos.addAndGet(start - queuedAt);
+                try {
+                    return hash.call();
+                } finally {
+                    long took = System.nanoTime() - start;
+                    hashes.incrementAndGet();
+                    hashNanos.addAndGet(took);
+                    maxHashNanos.accumulateAndGet(took, Math::max);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            rejected.incrementAndGet();
+            throw new LoginThrottledException("ระบบกำลังตรวจรหัสผ่านจำนวนมาก กรุณาลองใหม่อีกครั้ง", 1);
+        }
+        try {
+            return f.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException ex) {
+            f.cancel(true); // ยังอยู่ในคิว = ไม่ต้องทำแล้ว
+            timedOut.incrementAndGet();
+            throw new LoginThrottledException("ระบบกำลังตรวจรหัสผ่านจำนวนมาก กรุณาลองใหม่อีกครั้ง", 1);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            f.cancel(true);
+            throw new IllegalStateException("interrupted while hashing password", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException re) throw re;
+            throw new IllegalStateException(ex.getCause());
+        }
+    }
+
+    public Stats stats() {
+        long n = hashes.get();
+        return new Stats(executor.getCorePoolSize(), executor.getActiveCount(),
+                executor.getQueue().size(), executor.getQueue().size() + executor.getQueue().remainingCapacity(),
+                n,
+                n == 0 ? 0 : hashNanos.get() / 1e6 / n,
+                maxHashNanos.get() / 1e6,
+                n == 0 ? 0 : waitNanos.get() / 1e6 / n,
+                rejected.get(), timedOut.get());
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+}
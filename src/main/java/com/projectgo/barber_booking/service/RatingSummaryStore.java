@@ -0,0 +1,96 @@
+package com.projectgo.barber_booking.service;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+/**
+ * ตาราง service_rating_summary: จำนวน, ผลรวม และ histogram 1–5 ดาวต่อบริการ
+ * หน้า/endpoint คะแนนรีวิวอ่านจากที่นี่ (1 แถว) แทนการ aggregate service_reviews ทั้งหมด
+ * การเขียน (added / removedForBooking) ต้องอยู่ใน transaction เดียวกับการเขียนรีวิว
+ */
+@Service
+public class RatingSummaryStore {
+
+    private static final String COLUMNS =
+            "service, review_count, rating_sum, star1, star2, star3, star4, star5";
+
+    private static final String ADD_SQL = """
+            insert into service_rating_summary as s (service, review_count, rating_sum, star1, star2, star3, star4, star5)
+            values (?, 1, ?, ?, ?, ?, ?, ?)
+            on conflict (service) do update set
+                review_count = s.review_count + 1,
+                rating_sum   = s.rating_sum + excluded.rating_sum,
+                star1 = s.star1 + excluded.star1,
+                star2 = s.star2 + excluded.star2,
+                star3 = s.star3 + excluded.star3,
+                star4 = s.star4 + excluded.star4,
+                star5 = s.star5 + excluded.star5
+            """;
+
+    // รีวิวถูกลบตาม booking (ON DELETE CASCADE) → ต้องหักออกก่อนลบ booking
+    private static final String REMOVE_FOR_BOOKING_SQL = """
+            update service_rating_summary s set
+                review_count = s.review_count - 1,
+                rating_sum   = s.rating_sum - r.rating,
+                star1 = s.star1 - (r.rating = 1)::int,
+                star2 = s.star2 - (r.rating = 2)::int,
+                star3 = s.star3 - (r.rating = 3)::int,
+                star4 = s.star4 - (r.rating = 4)::int,
+                star5 = s.star5 - (r.rating = 5)::int
+            from service_reviews r
+            where r.booking_id = ? and s.service = r.service
+            """;
+
+    private static final RowMapper<Summary> MAPPER = (rs, i) -> new Summary(
+            rs.getString("service"), rs.getLong("review_count"), rs.getLong("rating_sum"),
+            new long[]{rs.getLong("star1"), rs.getLong("star2"), rs.getLong("star3"),
+                    rs.getLong("star4"), rs.getLong("star5")});
+
+    private final JdbcTemplate jdbc;
+
+    public RatingSummaryStore(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    /** histogram[0] = จำนวนรีวิว 1 ดาว ... histogram[4] = 5 ดาว */
+    public record Summary(String service, long count, long sum, long[] histogram) {
+
+        public static Summary empty(String service) {
+            return new Summary(service, 0, 0, new long[5]);
+        }
+
+        /** ค่าเฉลี่ยปัดทศนิยม 1 ตำแหน่ง (ไม่มีรีวิว = 0.0) */
+        public double avg() {
+            return count == 0 ? 0.0 : Math.round((double) sum / count * 10) / 10.0;
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void added(String service, int rating) {
+        jdbc.update(ADD_SQL, service, rating,
+                rating == 1 ? 1 : 0, rating == 2 ? 1 : 0, rating == 3 ? 1 : 0,
+                rating == 4 ? 1 : 0, rating == 5 ? 1 : 0);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void removedForBooking(Long bookingId) {
+        jdbc.update(REMOVE_FOR_BOOKING_SQL, bookingId);
+    }
+
+    public Summary find(String service) {
+        List<Summary> rows = jdbc.query(
+                "select " + COLUMNS + " from service_rating_summary where service = ?", MAPPER, service);
+        return rows.isEmpty() ? Summary.empty(service) : rows.get(0);
+    }
+
+    /** ทุกบริการที่มีรีวิว เรียงตามชื่อ (หน้า overview) */
+    public List<Summary> all() {
+        return jdbc.query("select " + COLUMNS + " from service_rating_summary"
+                + " where review_count > 0 order by service asc", MAPPER);
+    }
+}
@@ -1,12 +1,14 @@
 package com.projectgo.barber_booking.service;
 
+import com.projectgo.barber_booking.dto.ReviewCursor;
+import com.projectgo.barber_booking.dto.ReviewFeedDTO;
 import com.projectgo.barber_booking.model.Booking;
 import com.projectgo.barber_booking.model.ServiceReview;
 import com.projectgo.barber_booking.repository.BookingRepository;
 import com.projectgo.barber_booking.repository.ServiceReviewRepository;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,6 +20,9 @@ public class ReviewService {
     private final ServiceReviewRepository reviews;
     private final BookingRepository bookings;
     private final JdbcTemplate jdbc;
+    private final RatingSummaryStore ratingSummaries;
+    private final BarberLeaderboard leaderboard;
+    private final ReviewVersions versions;
 
     /** อนุญาตเฉพาะเจ้าของ booking และสถานะ 'เสร็จสิ้น' */
     private boolean canReview(Long bookingId, String username) {
@@ -51,29 +56,41 @@ public class ReviewService {
         r.setRating(rating);
         r.setComment(comment);
 
-        return reviews.save(r);
+        ServiceReview saved = reviews.save(r);
+        ratingSummaries.added(saved.getService(), rating); // transaction เดียวกับการบันทึกรีวิว
+        TransactionCallbacks.afterCommit(() -> {
+            leaderboard.recorded(saved.getId(), saved.getBarber(), rating, saved.getCreatedAt());
+            versions.bump(saved.getService()); // ETag ของ endpoint รีวิวบริการนี้เปลี่ยน
+        });
+        return saved;
     }
 
-    public Page<ServiceReview> listByService(String service, int page, int size) {
-        return reviews.findByServiceOrderByCreatedAtDesc(service, PageRequest.of(page, size));
+    /**
+     * ฟีดรีวิวของบริการแบบ keyset (ใหม่สุดก่อน) — cursor = nextCursor จากหน้าก่อน, null = หน้าแรก
+     * ลึกแค่ไหนก็อ่านจาก index เท่ากัน; ยอดรวมอ่านจาก service_rating_summary แทน count(*)
+     */
+    @Transactional(readOnly = true)
+    public ReviewFeedDTO feed(String service, ReviewCursor cursor, int size) {
+        PageRequest limit = PageRequest.ofSize(size);
+        Slice<ServiceReview> slice = (cursor == null)
+                ? reviews.findFeed(service, limit)
+                : reviews.findFeedAfter(service, cursor.createdAt(), cursor.id(), limit);
+
+        var items = slice.getContent();
+        String next = (slice.hasNext() && !items.isEmpty())
+                ? ReviewCursor.of(items.get(items.size() - 1)).encode()
+                : null;
+        return new ReviewFeedDTO(items, size, next, ratingSummaries.find(service).count());
     }
 
-    /** สรุปคะแนนเฉลี่ยและจำนวนรีวิวของบริการ */
+    /** สรุปคะแนนเฉลี่ยและจำนวนรีวิวของบริการ [avg, total] (อ่านจาก service_rating_summary) */
     public double[] summary(String service) {
-        // ใช้ SQL ตรง ๆ เพื่อให้ชนิดข้อมูลนิ่ง: avg = double, total = long
-        return jdbc.queryForObject(
-            """
-            select coalesce(avg(rating), 0.0) as avg_rating,
-                   count(*)::bigint        as total
-            from service_reviews
-            where service = ?
-            """,
-            (rs, n) -> new double[] {
-                Math.round(rs.getDouble("avg_rating") * 10) / 10.0,  // ปัดทศนิยม 1 ตำแหน่ง
-                rs.getLong("total")
-            },
-            service
-        );
-      }
-      
+        RatingSummaryStore.Summary s = ratingSummaries.find(service);
+        return new double[] { s.avg(), s.count() };
+    }
+
+    /** สรุปเต็ม รวม histogram 1–5 ดาว */
+    public RatingSummaryStore.Summary ratingSummary(String service) {
+        return ratingSummaries.find(service);
+    }
 }
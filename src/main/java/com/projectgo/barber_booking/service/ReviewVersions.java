@@ -0,0 +1,38 @@
+package com.projectgo.barber_booking.service;
+
+import org.springframework.stereotype.Service;
+
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * เลขเวอร์ชันรีวิวต่อบริการ (ในหน่วยความจำ) สำหรับ ETag / Last-Modified ของ endpoint รีวิวสาธารณะ
+ * - เพิ่มทุกครั้งที่รีวิวของบริการเปลี่ยน (หลัง commit) → ETag เปลี่ยน
+ * - ผูกกับเวลาเริ่มแอป: รีสตาร์ทแล้ว ETag เดิมใช้ไม่ได้ (client จะดึงใหม่ 1 ครั้ง) ไม่มีทางตอบ 304 ผิด
+ * ตรวจ ETag ได้โดยไม่แตะ DB
+ */
+@Service
+public class ReviewVersions {
+
+    private final long epoch = System.currentTimeMillis();
+    private final Version initial = new Version(0, Instant.ofEpochMilli(epoch));
+    // มีเฉพาะบริการที่รีวิวเคยเปลี่ยน (bump) — อ่านชื่อบริการมั่ว ๆ จาก URL สาธารณะจะไม่เพิ่ม entry
+    private final Map<String, Version> versions = new ConcurrentHashMap<>();
+
+    public record Version(long seq, Instant lastModified) {}
+
+    public Version current(String service) {
+        return (service == null) ? initial : versions.getOrDefault(service, initial);
+    }
+
+    public void bump(String service) {
+        if (service == null) return;
+        versions.compute(service, (k, v) -> new Version(v == null ? 1 : v.seq() + 1, Instant.now()));
+    }
+
+    /** ETag แบบ weak (เนื้อหา JSON อาจต่างกันเล็กน้อยตาม serializer แต่ความหมายเดียวกัน) */
+    public String etag(String service, String variant) {
+        return "W/\"" + Long.toString(epoch, 36) + "-" + current(service).seq() + "-" + variant + "\"";
+    }
+}
@@ -0,0 +1,194 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.model.Booking;
+import com.projectgo.barber_booking.repository.BookingRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * ดัชนีช่วงเวลาว่างในหน่วยความจำ: 1 bitmap ต่อ (ช่าง, วัน) ความละเอียด 1 นาที (1440 บิต = 23 long)
+ * - โหลดแบบ lazy จากตาราง bookings ครั้งแรกที่ถูกถามถึงวันนั้น (query นอก map แล้วค่อย putIfAbsent)
+ * - วันที่ผ่านไปแล้วถูกเก็บกวาดตามรอบ (booking.slots.evict-cron) ไม่ใช่ระหว่างโหลด
+ * - ทุกจุดที่สร้าง/ย้ายเวลา/เปลี่ยนสถานะ/ลบการจอง ต้องเรียก onCreated/onUpdated/onDeleted หลัง save สำเร็จ
+ * - ux_bookings_barber_slot ยังเป็นด่านสุดท้ายเสมอ ดัชนีนี้มีไว้ตัด existence probe ที่ไม่จำเป็น
+ *
+ * หมายเหตุ: unique index ไม่สนสถานะ (แถวที่ "ยกเลิก" ก็ยังจองช่องนั้นอยู่) ดัชนีนี้จึงนับทุกแถวเหมือนกัน
+ */
+@Service
+public class SlotAvailabilityIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotAvailabilityIndex.class);
+
+    private static final int MINUTES_PER_DAY = 24 * 60;
+    private static final int WORDS = (MINUTES_PER_DAY + 63) / 64;
+
+    private final BookingRepository bookingRepository;
+    private final ConcurrentHashMap<DayKey, AtomicLongArray> days = new ConcurrentHashMap<>();
+    // เพิ่มทุกครั้งที่มีการเขียน/invalidate — bitmap ที่โหลดคร่อมการเขียนจะไม่ถูกเก็บ (แบบเดียวกับ UserCache)
+    private final AtomicLong writes = new AtomicLong();
+
+    private final LocalTime open;
+    private final LocalTime close;
+    private final int stepMinutes;
+
+    public SlotAvailabilityIndex(BookingRepository bookingRepository,
+                                 @Value("${booking.slots.open:10:00}") String open,
+                                 @Value("${booking.slots.close:20:00}") String close,
+                                 @Value("${booking.slots.step-minutes:30}") int stepMinutes) {
+        this.bookingRepository = bookingRepository;
+        this.open = LocalTime.parse(open);
+        this.close = LocalTime.parse(close);
+        this.stepMinutes = Math.max(1, stepMinutes);
+    }
+
+    /** ช่องเวลาของการจองหนึ่งรายการ (ตรงกับคีย์ของ ux_bookings_barber_slot) */
+    public record Slot(String barber, LocalDate date, LocalTime time) {
+        public static Slot of(Booking b) {
+            return new Slot(b.getBarber(), b.getDate(), b.getTime());
+        }
+    }
+
+    private record DayKey(String barber, LocalDate date) {}
+
+    /* ---------------- query ---------------- */
+
+    /** ช่องนี้ถูกจองแล้วหรือยัง (เวลาที่มีวินาที/ไม่มีช่าง จะถามฐานข้อมูลตรง ๆ) */
+    public boolean isTaken(String barber, LocalDate date, LocalTime time) {
+        if (!indexable(barber, date, time)) {
+            return bookingRepository.existsByBarberAndDateAndTime(barber, date, time);
+        }
+        int minute = minuteOf(time);
+        AtomicLongArray bits = bitmap(new DayKey(barber, date));
+        return (bits.get(minute >>> 6) & (1L << minute)) != 0;
+    }
+
+    /** ช่องเวลาว่างตามตารางเปิดร้าน (booking.slots.*) ของช่างในวันนั้น */
+    public List<LocalTime> freeSlots(String barber, LocalDate date) {
+        List<LocalTime> free = new ArrayList<>();
+        if (barber == null || barber.isBlank() || date == null) return free;
+
+        AtomicLongArray bits = bitmap(new DayKey(barber, date));
+        for (int m = minuteOf(open); m < minuteOf(close); m += stepMinutes) {
+            if ((bits.get(m >>> 6) & (1L << m)) == 0) {
+                free.add(LocalTime.of(m / 60, m % 60));
+            }
+        }
+        return free;
+    }
+
+    /** จำนวนช่องที่ถูกจองของช่างในวันนั้น (popcount ของ bitmap = ตัวนับภาระงานรายวัน) */
+    public int bookedCount(String barber, LocalDate date) {
+        if (barber == null || date == null) return 0;
+        AtomicLongArray bits = bitmap(new DayKey(barber, date));
+        int n = 0;
+        for (int i = 0; i < WORDS; i++) {
+            n += Long.bitCount(bits.get(i));
+        }
+        return n;
+    }
+
+    /* ---------------- write hooks ---------------- */
+
+    public void onCreated(Booking saved) {
+        mark(Slot.of(saved), true);
+    }
+
+    /** เรียกหลังแก้ไขทุกแบบ (รวมเปลี่ยนสถานะ) — ถ้าช่องไม่เปลี่ยนจะไม่ทำอะไร */
+    public void onUpdated(Slot before, Booking after) {
+        Slot now = Slot.of(after);
+        if (Objects.equals(before, now)) return;
+        mark(before, false);
+        mark(now, true);
+    }
+
+    public void onDeleted(Slot before) {
+        mark(before, false);
+    }
+
+    /** ทิ้ง bitmap ของวันนั้น ให้โหลดใหม่รอบหน้า (ใช้เมื่อ DB แจ้งว่าชน แต่ดัชนีบอกว่าว่าง) */
+    public void invalidate(String barber, LocalDate date) {
+        if (barber == null || date == null) return;
+        writes.incrementAndGet();
+        days.remove(new DayKey(barber, date));
+    }
+
+    /** วันที่ผ่านไปแล้วไม่มีใครจองเพิ่ม ปล่อยทิ้งได้ */
+    @Scheduled(cron = "${booking.slots.evict-cron:0 5 0 * * *}")
+    public void evictPastDays() {
+        evictBefore(LocalDate.now());
+    }
+
+    void evictBefore(LocalDate today) {
+        int before = days.size();
+        days.keySet().removeIf(k -> k.date().isBefore(today));
+        log.debug("slot index evicted: {} day(s) before {}", before - days.size(), today);
+    }
+
+    /* ---------------- internals ---------------- */
+
+    private void mark(Slot s, boolean taken) {
+        if (s == null || !indexable(s.barber(), s.date(), s.time())) return;
+        int minute = minuteOf(s.time());
+        long mask = 1L << minute;
+        // ถ้าวันนั้นยังไม่ถูกโหลด ก็ไม่ต้องทำอะไร: รอบโหลดที่เริ่มหลังจากนี้จะเห็นข้อมูลที่ commit แล้ว
+        // ส่วนรอบที่กำลังโหลดอยู่จะเห็น writes เปลี่ยนแล้วไม่เก็บผลของตัวเอง
+        writes.incrementAndGet();
+        days.computeIfPresent(new DayKey(s.barber(), s.date()), (k, bits) -> {
+            bits.getAndUpdate(minute >>> 6, w -> taken ? (w | mask) : (w & ~mask));
+            return bits;
+        });
+    }
+
+    /**
+     * bitmap ของวันนั้น — query อยู่นอก map (ไม่ถือ lock ของ bin ระหว่างรอ DB)
+     * ถ้ามีการเขียนระหว่างโหลด ใช้ผลที่โหลดได้ตอบครั้งนี้ แต่ไม่เก็บลง map
+     */
+    private AtomicLongArray bitmap(DayKey key) {
+        AtomicLongArray bits = days.get(key);
+        if (bits != null) return bits;
+
+        long seen = writes.get();
+        AtomicLongArray loaded = load(key);
+        if (writes.get() != seen) return loaded;
+        AtomicLongArray prev = days.putIfAbsent(key, loaded);
+        if (prev != null) return prev;
+        // mark ที่เกิดหลังตรวจ writes ครั้งแรกแต่ก่อน putIfAbsent หา bitmap นี้ไม่เจอ → ถอนออก ให้รอบหน้าโหลดใหม่
+        if (writes.get() != seen) days.remove(key, loaded);
+        return loaded;
+    }
+
+    private AtomicLongArray load(DayKey key) {
+        AtomicLongArray bits = new AtomicLongArray(WORDS);
+        for (LocalTime t : bookingRepository.findTimesByBarberAndDate(key.barber(), key.date())) {
+            if (t == null || !minuteAligned(t)) continue;
+            int minute = minuteOf(t);
+            bits.getAndUpdate(minute >>> 6, w -> w | (1L << minute));
+        }
+        log.debug("slot index loaded: {} {}", key.barber(), key.date());
+        return bits;
+    }
+
+    private static boolean indexable(String barber, LocalDate date, LocalTime time) {
+        return barber != null && date != null && time != null && minuteAligned(time);
+    }
+
+    private static boolean minuteAligned(LocalTime t) {
+        return t.getSecond() == 0 && t.getNano() == 0;
+    }
+
+    private static int minuteOf(LocalTime t) {
+        return t.getHour() * 60 + t.getMinute();
+    }
+}
@@ -0,0 +1,85 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.service.SlotAvailabilityIndex.Slot;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ล็อกช่องเวลาชั่วคราว (hold) ระหว่างหน้า "ยืนยันการจอง" กับการกด submit
+ * - เก็บใน ConcurrentHashMap (แบ่ง bin ภายในอยู่แล้ว) ไม่มี global lock
+ * - hold หมดอายุเองตาม TTL: ถือว่าหมดทันทีที่เลยเวลา และมี reaper เก็บกวาดเป็นระยะ
+ * - ผู้ใช้คนเดิมขอซ้ำได้ (ต่ออายุ) ผู้ใช้อื่นจะเห็นว่าช่องนี้ "มีคนกำลังจอง"
+ */
+@Service
+public class SlotHoldRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(SlotHoldRegistry.class);
+
+    private final ConcurrentHashMap<Slot, Hold> holds = new ConcurrentHashMap<>();
+    private final long ttlMillis;
+
+    public SlotHoldRegistry(@Value("${booking.hold.ttl-seconds:300}") long ttlSeconds) {
+        this.ttlMillis = Math.max(1, ttlSeconds) * 1000L;
+    }
+
+    /** ผู้ถือ hold และเวลาหมดอายุ (epoch millis) */
+    public record Hold(String username, long expiresAt) {
+        boolean expired(long now) { return now >= expiresAt; }
+    }
+
+    /** ขอ hold ช่องเวลา — ได้ก็ต่อเมื่อว่างหรือเป็นของผู้ใช้คนเดิม (จะต่ออายุให้) */
+    public Optional<Hold> acquire(Slot slot, String username) {
+        long now = System.currentTimeMillis();
+        Hold mine = new Hold(username, now + ttlMillis);
+        Hold result = holds.compute(slot, (k, cur) ->
+                (cur == null || cur.expired(now) || cur.username().equals(username)) ? mine : cur);
+        return result == mine ? Optional.of(mine) : Optional.empty();
+    }
+
+    /** ช่องนี้ถูกผู้ใช้อื่นถือ hold อยู่หรือไม่ */
+    public boolean isHeldByOther(Slot slot, String username) {
+        Hold h = holds.get(slot);
+        return h != null && !h.expired(System.currentTimeMillis()) && !h.username().equals(username);
+    }
+
+    /** ปล่อย hold (เรียกหลัง submit สำเร็จ/ล้มเหลว) — ปล่อยได้เฉพาะของตัวเอง */
+    public void release(Slot slot, String username) {
+        holds.computeIfPresent(slot, (k, cur) -> cur.username().equals(username) ? null : cur);
+    }
+
+    /** เวลาที่ผู้ใช้อื่นถือ hold อยู่ของช่างในวันนั้น (ใช้ซ่อนจากรายการช่องว่าง) */
+    public List<LocalTime> heldTimes(String barber, LocalDate date, String exceptUser) {
+        long now = System.currentTimeMillis();
+        List<LocalTime> out = new ArrayList<>();
+        holds.forEach((slot, h) -> {
+            if (slot.date().equals(date) && slot.barber().equals(barber)
+                    && !h.expired(now) && !h.username().equals(exceptUser)) {
+                out.add(slot.time());
+            }
+        });
+        return out;
+    }
+
+    public long ttlSeconds() { return ttlMillis / 1000L; }
+
+    /** reaper: เก็บกวาด hold ที่หมดอายุ (remove แบบมีเงื่อนไข ไม่ทับ hold ใหม่ที่เพิ่งได้) */
+    @Scheduled(fixedDelayString = "${booking.hold.reap-interval-ms:30000}")
+    public void reapExpired() {
+        long now = System.currentTimeMillis();
+        int[] removed = {0};
+        holds.forEach((slot, h) -> {
+            if (h.expired(now) && holds.remove(slot, h)) removed[0]++;
+        });
+        if (removed[0] > 0) log.debug("slot holds reaped: {}", removed[0]);
+    }
+}
@@ -0,0 +1,24 @@
+package com.projectgo.barber_booking.service;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/** งานที่ต้องทำหลัง transaction ปัจจุบัน commit แล้วเท่านั้น (cache / โครงสร้างในหน่วยความจำ) */
+final class TransactionCallbacks {
+
+    private TransactionCallbacks() {}
+
+    /** รันหลัง commit (rollback แล้วไม่ต้องย้อน) — ไม่มี transaction อยู่ก็รันทันที */
+    static void afterCommit(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                action.run();
+            }
+        });
+    }
+}
@@ -0,0 +1,92 @@
+package com.projectgo.barber_booking.service;
+
+import com.projectgo.barber_booking.model.User;
+import com.projectgo.barber_booking.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * cache ผู้ใช้ตาม username (LRU จำกัดจำนวน + หมดอายุตาม TTL)
+ * - หน้าที่ต้องรู้ว่า "ใครล็อกอินอยู่" อ่านผ่าน @CurrentUser → ไม่ต้อง query users ทุก request
+ * - เก็บเป็นสำเนาที่ไม่มีรหัสผ่าน และคืนสำเนาใหม่ทุกครั้ง (ผู้เรียกแก้ object ได้โดยไม่กระทบ cache)
+ * - UserService.updateProfile / changePassword และอัปโหลดรูปโปรไฟล์ต้องเรียก invalidate
+ * ถ้ารันหลาย instance ข้อมูลอาจค้างได้ไม่เกิน TTL
+ */
+@Service
+public class UserCache {
+
+    private final UserRepository users;
+    private final long ttlMillis;
+    private final Map<String, Entry> cache;
+    private long invalidations; // guard โดย cache — กันไม่ให้ค่าที่อ่านก่อน invalidate ถูกใส่กลับเข้าไป
+
+    public UserCache(UserRepository users,
+                     @Value("${user.cache.max-entries:5000}") int maxEntries,
+                     @Value("${user.cache.ttl-seconds:300}") long ttlSeconds) {
+        this.users = users;
+        this.ttlMillis = ttlSeconds * 1000;
+        int cap = Math.max(16, maxEntries);
+        this.cache = new LinkedHashMap<>(256, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+                return size() > cap;
+            }
+        };
+    }
+
+    private record Entry(User user, long loadedAt) {}
+
+    /** ผู้ใช้ตาม username (ตอบจาก cache ถ้ายังไม่หมดอายุ) */
+    public Optional<User> find(String username) {
+        if (username == null || username.isBlank()) return Optional.empty();
+        long now = System.currentTimeMillis();
+        Entry e;
+        long seen;
+        synchronized (cache) {
+            e = cache.get(username);
+            seen = invalidations;
+        }
+        if (e != null && now - e.loadedAt() < ttlMillis) {
+            return Optional.of(copy(e.user()));
+        }
+        Optional<User> loaded = users.findByUsername(username);
+        synchronized (cache) {
+            if (loaded.isEmpty()) cache.remove(username);
+            else if (seen == invalidations) cache.put(username, new Entry(copy(loaded.get()), now));
+        }
+        return loaded.map(UserCache::copy);
+    }
+
+    /** ใส่ข้อมูลที่เพิ่งอ่านจาก DB (เช่นตอนล็อกอิน) ให้หน้าถัดไปไม่ต้อง query ซ้ำ */
+    public void put(User u) {
+        if (u == null || u.getUsername() == null) return;
+        Entry e = new Entry(copy(u), System.currentTimeMillis());
+        synchronized (cache) {
+            cache.put(u.getUsername(), e);
+        }
+    }
+
+    public void invalidate(String username) {
+        if (username == null) return;
+        synchronized (cache) {
+            cache.remove(username);
+            invalidations++;
+        }
+    }
+
+    private static User copy(User u) {
+        User c = new User();
+        c.setId(u.getId());
+        c.setUsername(u.getUsername());
+        c.setRole(u.getRole());
+        c.setFullName(u.getFullName());
+        c.setEmail(u.getEmail());
+        c.setAvatarUrl(u.getAvatarUrl());
+        c.setCreatedAt(u.getCreatedAt());
+        return c;
+    }
+}
@@ -22,16 +22,18 @@ public class UserService {
 
   private final UserRepository repo;
   private final PasswordEncoder encoder;
+  private final UserCache userCache;
 
   // --- เพิ่มเมธอดนี้ เพื่อให้ Controller ดึง user ไปโชว์วันที่สมัครได้ ---
   public User getById(Long id) {
     return repo.findById(id).orElseThrow(() -> new NoSuchElementException("user not found"));
   }
 
+  // principal มาจาก CustomUserDetailsService จึงเป็น username เสมอ → ถาม cache ก่อน, อีเมลเป็นแค่ทางสำรอง
   private User requireUserByLogin(String login){
-    return repo.findByEmail(login)
-        .orElseGet(() -> repo.findByUsername(login)
-            .orElseThrow(() -> new BadCredentialsException("User not found")));
+    return userCache.find(login)
+        .or(() -> repo.findByEmail(login))
+        .orElseThrow(() -> new BadCredentialsException("User not found"));
   }
 
   public Long currentUserId(Authentication auth){
@@ -43,8 +45,7 @@ public class UserService {
     return requireUserByLogin(login).getId();
   }
 
-  public ProfileUpdateForm toForm(Long userId){
-    User u = getById(userId);
+  public ProfileUpdateForm toForm(User u){
     ProfileUpdateForm f = new ProfileUpdateForm();
     f.setFullName(u.getFullName() == null ? "" : u.getFullName());
     f.setEmail(u.getEmail());
@@ -72,6 +73,7 @@ public class UserService {
       u.setEmail(newEmailRaw);
     }
     // ถ้าไม่เปลี่ยนอะไรเลย ก็จะไม่โยน error — ผ่านได้
+    evictAfterCommit(u.getUsername());
   }
 
   @Transactional
@@ -81,6 +83,13 @@ public class UserService {
     if (!encoder.matches(f.getCurrentPassword(), u.getPassword()))
       throw new BadCredentialsException("BAD_CURRENT");
     u.setPassword(encoder.encode(f.getNewPassword()));
+    evictAfterCommit(u.getUsername());
+  }
+
+  /** ลบจาก cache ทันทีและอีกครั้งหลัง commit (กัน request อื่นอ่านค่าเก่าเข้าไปใหม่ระหว่างนั้น) */
+  private void evictAfterCommit(String username){
+    userCache.invalidate(username);
+    TransactionCallbacks.afterCommit(() -> userCache.invalidate(username));
   }
   
 }
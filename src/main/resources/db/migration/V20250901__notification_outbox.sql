@@ -0,0 +1,22 @@
+-- Outbox สำหรับการแจ้งเตือน (เขียนใน transaction เดียวกับการเปลี่ยนแปลง booking)
+-- NotificationDispatcher จะดึงไปส่งเป็นชุด พร้อม retry/backoff และ dead-letter
+CREATE TABLE IF NOT EXISTS notification_outbox (
+  id              BIGSERIAL PRIMARY KEY,
+  channel         VARCHAR(20)  NOT NULL,               -- EMAIL / LINE
+  event           VARCHAR(40)  NOT NULL,               -- BOOKING_CREATED / STATUS_CHANGED
+  booking_id      BIGINT,
+  payload         TEXT         NOT NULL,               -- JSON snapshot ของ booking ตอนเกิดเหตุการณ์
+  status          VARCHAR(20)  NOT NULL DEFAULT 'PENDING',
+  attempts        INT          NOT NULL DEFAULT 0,
+  next_attempt_at TIMESTAMPTZ  NOT NULL DEFAULT now(),
+  locked_until    TIMESTAMPTZ,
+  last_error      TEXT,
+  created_at      TIMESTAMPTZ  NOT NULL DEFAULT now(),
+  sent_at         TIMESTAMPTZ,
+  CONSTRAINT ck_outbox_status CHECK (status IN ('PENDING','SENDING','SENT','DEAD'))
+);
+
+-- ดัชนีสำหรับคิวงานที่ยังไม่ส่ง (partial index เล็กและเร็ว)
+CREATE INDEX IF NOT EXISTS ix_outbox_ready
+    ON notification_outbox (next_attempt_at, id)
+    WHERE status IN ('PENDING','SENDING');
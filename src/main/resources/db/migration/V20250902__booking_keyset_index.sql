@@ -0,0 +1,2 @@
+-- keyset pagination ของแดชบอร์ด: เรียงและเลื่อนหน้าตาม (date, time, id) ได้จาก index ตรง ๆ
+CREATE INDEX IF NOT EXISTS ix_bookings_date_time_id ON bookings (date, time, id);
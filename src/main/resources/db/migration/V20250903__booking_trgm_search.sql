@@ -0,0 +1,22 @@
+-- ค้นหาอิสระในแดชบอร์ด: lower(col) LIKE '%q%' ใช้ btree ไม่ได้ → ใช้ trigram GIN index แทน
+-- ถ้า DB ไม่มี pg_trgm หรือ user ไม่มีสิทธิ์ CREATE EXTENSION ให้ข้ามไป (แอปจะ fallback เป็นค้นแบบเดิม)
+DO $$
+BEGIN
+    CREATE EXTENSION IF NOT EXISTS pg_trgm;
+EXCEPTION
+    WHEN insufficient_privilege OR undefined_file OR feature_not_supported THEN
+        RAISE NOTICE 'pg_trgm unavailable, booking search will use sequential LIKE';
+END
+$$;
+
+-- index ต่อคอลัมน์บน lower(col) ตรงกับ predicate ของ BookingSpecs.freeText (Postgres รวมด้วย BitmapOr)
+DO $$
+BEGIN
+    IF EXISTS (SELECT 1 FROM pg_extension WHERE extname = 'pg_trgm') THEN
+        CREATE INDEX IF NOT EXISTS ix_bookings_username_trgm ON bookings USING gin (lower(username) gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS ix_bookings_service_trgm  ON bookings USING gin (lower(service)  gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS ix_bookings_barber_trgm   ON bookings USING gin (lower(barber)   gin_trgm_ops);
+        CREATE INDEX IF NOT EXISTS ix_bookings_note_trgm     ON bookings USING gin (lower(note)     gin_trgm_ops);
+    END IF;
+END
+$$;
@@ -0,0 +1,17 @@
+-- read model สำหรับแดชบอร์ด: จำนวนการจองต่อ (วัน, ช่าง, บริการ, สถานะ)
+-- อัปเดตใน transaction เดียวกับการเขียน bookings (BookingRollup) และตรวจ/สร้างใหม่ได้จาก BookingRollup.verify()
+CREATE TABLE IF NOT EXISTS booking_daily_stats (
+    date    date         NOT NULL,
+    barber  varchar(255) NOT NULL,
+    service varchar(255) NOT NULL,
+    status  varchar(255) NOT NULL,
+    cnt     integer      NOT NULL DEFAULT 0,
+    PRIMARY KEY (date, barber, service, status)
+);
+
+-- เติมจากข้อมูลที่มีอยู่ (bookings.barber เป็น NULL ได้ → นับเป็น '' ให้ตรงกับ BookingRollup.Key)
+INSERT INTO booking_daily_stats (date, barber, service, status, cnt)
+SELECT date, coalesce(barber, ''), service, status, count(*)
+FROM bookings
+GROUP BY date, coalesce(barber, ''), service, status
+ON CONFLICT (date, barber, service, status) DO UPDATE SET cnt = EXCLUDED.cnt;
@@ -0,0 +1,25 @@
+-- สรุปคะแนนรีวิวต่อบริการ (อ่านแทน avg/count บน service_reviews ทุกครั้ง)
+-- อัปเดตใน transaction เดียวกับการสร้าง/ลบรีวิว (RatingSummaryStore)
+CREATE TABLE IF NOT EXISTS service_rating_summary (
+    service      varchar(255) PRIMARY KEY,
+    review_count bigint NOT NULL DEFAULT 0,
+    rating_sum   bigint NOT NULL DEFAULT 0,
+    star1        bigint NOT NULL DEFAULT 0,
+    star2        bigint NOT NULL DEFAULT 0,
+    star3        bigint NOT NULL DEFAULT 0,
+    star4        bigint NOT NULL DEFAULT 0,
+    star5        bigint NOT NULL DEFAULT 0
+);
+
+INSERT INTO service_rating_summary (service, review_count, rating_sum, star1, star2, star3, star4, star5)
+SELECT service,
+       count(*),
+       sum(rating),
+       count(*) FILTER (WHERE rating = 1),
+       count(*) FILTER (WHERE rating = 2),
+       count(*) FILTER (WHERE rating = 3),
+       count(*) FILTER (WHERE rating = 4),
+       count(*) FILTER (WHERE rating = 5)
+FROM service_reviews
+GROUP BY service
+ON CONFLICT (service) DO NOTHING;
@@ -0,0 +1,3 @@
+-- ฟีดรีวิวต่อบริการแบบ keyset: where service = ? and (created_at, id) < (?, ?) order by created_at desc, id desc
+-- อ่านจาก index ตรง ๆ ไม่ต้อง sort/offset (แทน ix_reviews_service สำหรับงานนี้)
+CREATE INDEX IF NOT EXISTS ix_reviews_service_created_id ON service_reviews (service, created_at DESC, id DESC);
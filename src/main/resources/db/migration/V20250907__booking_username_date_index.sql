@@ -0,0 +1,2 @@
+-- หน้า "รายการจองของฉัน": where username = ? order by date desc, time desc, id desc limit ? offset ?
+CREATE INDEX IF NOT EXISTS ix_bookings_username_date ON bookings (username, date DESC, time DESC, id DESC);
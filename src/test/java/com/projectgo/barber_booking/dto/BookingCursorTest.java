@@ -0,0 +1,53 @@
+package com.projectgo.barber_booking.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class BookingCursorTest {
+
+	@Test
+	void roundTrips() {
+		BookingCursor c = new BookingCursor(LocalDate.of(2025, 9, 1), LocalTime.of(10, 30), 42L);
+		assertThat(BookingCursor.decode(c.encode())).isEqualTo(c);
+	}
+
+	@Test
+	void keepsSecondsOfTime() {
+		BookingCursor c = new BookingCursor(LocalDate.of(2025, 1, 31), LocalTime.of(9, 5, 7), Long.MAX_VALUE);
+		assertThat(BookingCursor.decode(c.encode())).isEqualTo(c);
+	}
+
+	@Test
+	void encodesAsUrlSafeBase64WithoutPadding() {
+		String s = new BookingCursor(LocalDate.of(2025, 9, 1), LocalTime.of(10, 0), 7L).encode();
+		assertThat(s).matches("[A-Za-z0-9_-]+");
+	}
+
+	@Test
+	void blankMeansFirstPage() {
+		assertThat(BookingCursor.decode(null)).isNull();
+		assertThat(BookingCursor.decode("  ")).isNull();
+	}
+
+	@Test
+	void rejectsMalformedCursors() {
+		assertThatThrownBy(() -> BookingCursor.decode("not base64!")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> BookingCursor.decode(b64("2025-09-01|10:00")))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> BookingCursor.decode(b64("2025-13-01|10:00|1")))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> BookingCursor.decode(b64("2025-09-01|10:00|x")))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static String b64(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
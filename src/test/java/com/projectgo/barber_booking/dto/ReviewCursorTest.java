@@ -0,0 +1,38 @@
+package com.projectgo.barber_booking.dto;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class ReviewCursorTest {
+
+	@Test
+	void roundTripsWithSubSecondPrecision() {
+		ReviewCursor c = new ReviewCursor(Instant.parse("2025-09-06T08:15:30.123456Z"), 99L);
+		assertThat(ReviewCursor.decode(c.encode())).isEqualTo(c);
+	}
+
+	@Test
+	void blankMeansFirstPage() {
+		assertThat(ReviewCursor.decode(null)).isNull();
+		assertThat(ReviewCursor.decode("")).isNull();
+	}
+
+	@Test
+	void rejectsMalformedCursors() {
+		assertThatThrownBy(() -> ReviewCursor.decode("%%%")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ReviewCursor.decode(b64("2025-09-06T08:15:30Z")))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> ReviewCursor.decode(b64("yesterday|1")))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	private static String b64(String raw) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+	}
+}
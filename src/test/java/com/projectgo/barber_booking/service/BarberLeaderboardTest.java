@@ -0,0 +1,135 @@
+package com.projectgo.barber_booking.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import com.projectgo.barber_booking.service.BarberLeaderboard.Entry;
+
+class BarberLeaderboardTest {
+
+	private static final Instant NOW = Instant.parse("2025-09-10T05:00:00Z");
+	private static final Clock CLOCK = Clock.fixed(NOW, ZoneId.of("Asia/Bangkok"));
+
+	private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+	private final BarberLeaderboard board = new BarberLeaderboard(jdbc, CLOCK);
+
+	private static Instant daysAgo(int days) {
+		return NOW.minus(Duration.ofDays(days));
+	}
+
+	private static ResultSet row(long id, String barber, int rating, Instant createdAt) throws SQLException {
+		ResultSet rs = mock(ResultSet.class);
+		when(rs.getLong("id")).thenReturn(id);
+		when(rs.getString("barber")).thenReturn(barber);
+		when(rs.getInt("rating")).thenReturn(rating);
+		when(rs.getTimestamp("created_at")).thenReturn(Timestamp.from(createdAt));
+		return rs;
+	}
+
+	/** query ของ rebuild: เรียก duringQuery ก่อน แล้วค่อยส่งแถวที่ "DB เห็น" */
+	private void stubRebuild(Runnable duringQuery, ResultSet... rows) {
+		doAnswer(inv -> {
+			duringQuery.run();
+			RowCallbackHandler h = inv.getArgument(1);
+			for (ResultSet rs : rows) h.processRow(rs);
+			return null;
+		}).when(jdbc).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+	}
+
+	@Test
+	void windowsCountOnlyTheirDays() {
+		board.recorded(1, "ช่างเอ", 5, daysAgo(0));
+		board.recorded(2, "ช่างเอ", 3, daysAgo(10));
+		board.recorded(3, "ช่างเอ", 1, daysAgo(60));
+
+		assertThat(board.top(7, 1)).containsExactly(new Entry("ช่างเอ", 1, 5.0));
+		assertThat(board.top(30, 1)).containsExactly(new Entry("ช่างเอ", 2, 4.0));
+		assertThat(board.top(90, 1)).containsExactly(new Entry("ช่างเอ", 3, 3.0));
+	}
+
+	@Test
+	void ringSlotIsReusedByTheNewerDayOnly() {
+		// วันนี้กับ 90 วันก่อนใช้ slot เดียวกัน
+		board.recorded(1, "ช่างเอ", 5, daysAgo(0));
+		board.recorded(2, "ช่างเอ", 1, daysAgo(90));
+
+		assertThat(board.top(90, 1)).containsExactly(new Entry("ช่างเอ", 1, 5.0));
+	}
+
+	@Test
+	void removedReviewIsSubtracted() {
+		board.recorded(1, "ช่างเอ", 5, daysAgo(1));
+		board.recorded(2, "ช่างเอ", 2, daysAgo(1));
+		board.removed(2, "ช่างเอ", 2, daysAgo(1));
+
+		assertThat(board.top(7, 1)).containsExactly(new Entry("ช่างเอ", 1, 5.0));
+	}
+
+	@Test
+	void ordersByAverageThenCountAndAppliesMinReviews() {
+		board.recorded(1, "ช่างเอ", 4, daysAgo(1));
+		board.recorded(2, "ช่างบี", 4, daysAgo(1));
+		board.recorded(3, "ช่างบี", 4, daysAgo(2));
+		board.recorded(4, "ช่างซี", 5, daysAgo(1));
+
+		assertThat(board.top(7, 1)).extracting(Entry::barber).containsExactly("ช่างซี", "ช่างบี", "ช่างเอ");
+		assertThat(board.top(7, 2)).extracting(Entry::barber).containsExactly("ช่างบี");
+		assertThatThrownBy(() -> board.top(91, 1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	void rebuildReplacesTheInMemoryState() throws SQLException {
+		board.recorded(99, "ช่างเก่า", 5, daysAgo(1));
+		stubRebuild(() -> {}, row(1, "ช่างเอ", 4, daysAgo(1)));
+
+		board.rebuild();
+
+		assertThat(board.top(7, 1)).containsExactly(new Entry("ช่างเอ", 1, 4.0));
+	}
+
+	@Test
+	void updatesCommittedDuringRebuildSurviveTheSwap() throws SQLException {
+		ResultSet seenByQuery = row(1, "ช่างเอ", 4, daysAgo(1));
+		ResultSet alsoSeen = row(2, "ช่างเอ", 2, daysAgo(1));
+		stubRebuild(() -> {
+			// รีวิวใหม่ที่ query ไม่เห็น
+			board.recorded(3, "ช่างบี", 5, daysAgo(0));
+			// รีวิวที่ query เห็นแล้ว แต่ callback หลัง commit มาช้า → ต้องไม่นับซ้ำ
+			board.recorded(1, "ช่างเอ", 4, daysAgo(1));
+			// รีวิวที่ query เห็น แต่ถูกลบระหว่างนั้น
+			board.removed(2, "ช่างเอ", 2, daysAgo(1));
+			// เพิ่มแล้วลบระหว่างนั้น (query ไม่เห็นทั้งคู่)
+			board.recorded(4, "ช่างซี", 1, daysAgo(0));
+			board.removed(4, "ช่างซี", 1, daysAgo(0));
+		}, seenByQuery, alsoSeen);
+
+		board.rebuild();
+
+		assertThat(board.top(7, 1)).containsExactly(
+				new Entry("ช่างบี", 1, 5.0),
+				new Entry("ช่างเอ", 1, 4.0));
+
+		// หลัง rebuild การอัปเดตกลับไปเขียนตรงเหมือนเดิม
+		board.recorded(5, "ช่างเอ", 5, daysAgo(0));
+		assertThat(board.top(7, 1)).extracting(Entry::count).containsExactly(1L, 2L);
+		assertThat(board.top(7, 2)).isEqualTo(List.of(new Entry("ช่างเอ", 2, 4.5)));
+	}
+}
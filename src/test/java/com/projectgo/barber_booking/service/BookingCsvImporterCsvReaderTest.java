@@ -0,0 +1,99 @@
+package com.projectgo.barber_booking.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+import com.projectgo.barber_booking.service.BookingCsvImporter.CsvReader;
+
+class BookingCsvImporterCsvReaderTest {
+
+	@Test
+	void readsPlainRecords() throws IOException {
+		assertThat(readAll("a,b,c\n1,2,3\n")).containsExactly(
+				List.of("a", "b", "c"),
+				List.of("1", "2", "3"));
+	}
+
+	@Test
+	void lastRecordWithoutNewlineIsKept() throws IOException {
+		assertThat(readAll("a,b\n1,2")).containsExactly(List.of("a", "b"), List.of("1", "2"));
+	}
+
+	@Test
+	void emptyInputHasNoRecords() throws IOException {
+		assertThat(readAll("")).isEmpty();
+	}
+
+	@Test
+	void keepsEmptyFields() throws IOException {
+		assertThat(readAll(",x,\n")).containsExactly(List.of("", "x", ""));
+	}
+
+	@Test
+	void handlesCrlfLineEndings() throws IOException {
+		assertThat(readAll("a,b\r\n1,\"2\"\r\n")).containsExactly(List.of("a", "b"), List.of("1", "2"));
+	}
+
+	@Test
+	void unquotesCommasAndDoubledQuotes() throws IOException {
+		assertThat(readAll("\"ตัด, สระ\",\"เขา \"\"ด่วน\"\"\",\"\"\n")).containsExactly(
+				List.of("ตัด, สระ", "เขา \"ด่วน\"", ""));
+	}
+
+	@Test
+	void quotedNewlinesStayInsideTheFieldAndCountLines() throws IOException {
+		CsvReader csv = new CsvReader(new StringReader("h1,h2\n1,\"line one\nline two\"\n2,x\n"));
+		assertThat(csv.next()).containsExactly("h1", "h2");
+		assertThat(csv.recordLine()).isEqualTo(1);
+		assertThat(csv.next()).containsExactly("1", "line one\nline two");
+		assertThat(csv.recordLine()).isEqualTo(2);
+		assertThat(csv.next()).containsExactly("2", "x");
+		assertThat(csv.recordLine()).isEqualTo(4);
+		assertThat(csv.next()).isNull();
+	}
+
+	@Test
+	void readsAcrossBufferBoundaries() throws IOException {
+		String longNote = "n".repeat(100_000);
+		assertThat(readAll("a,\"" + longNote + "\"\nb,c\n", 7)).containsExactly(
+				List.of("a", longNote),
+				List.of("b", "c"));
+	}
+
+	@Test
+	void headerNamesIgnoreCaseWhitespaceAndBom() {
+		Map<String, Integer> cols = BookingCsvImporter.columns(
+				List.of("\uFEFFID", " Username ", "SERVICE", "username"));
+		assertThat(cols).containsEntry("id", 0)
+				.containsEntry("username", 1)
+				.containsEntry("service", 2)
+				.hasSize(3);
+	}
+
+	private static List<List<String>> readAll(String csv) throws IOException {
+		return readAll(csv, Integer.MAX_VALUE);
+	}
+
+	/** chunk = จำนวนตัวอักษรสูงสุดต่อการ read หนึ่งครั้ง (จำลอง stream ที่มาเป็นช่วง ๆ) */
+	private static List<List<String>> readAll(String csv, int chunk) throws IOException {
+		Reader in = new StringReader(csv) {
+			@Override
+			public int read(char[] cbuf, int off, int len) throws IOException {
+				return super.read(cbuf, off, Math.min(len, chunk));
+			}
+		};
+		CsvReader reader = new CsvReader(in);
+		List<List<String>> out = new ArrayList<>();
+		List<String> rec;
+		while ((rec = reader.next()) != null) out.add(rec);
+		return out;
+	}
+}
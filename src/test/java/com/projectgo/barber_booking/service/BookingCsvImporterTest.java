@@ -0,0 +1,79 @@
+package com.projectgo.barber_booking.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyManager;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.support.SQLStateSQLExceptionTranslator;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.projectgo.barber_booking.dto.ImportReportDTO;
+import com.projectgo.barber_booking.dto.ImportReportDTO.RowError;
+
+class BookingCsvImporterTest {
+
+	private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+	private final DataSource dataSource = mock(DataSource.class);
+	private final Connection con = mock(Connection.class);
+	private final PGConnection pg = mock(PGConnection.class);
+	private final CopyManager copy = mock(CopyManager.class);
+
+	// batch-size 1 → หนึ่งแถวต่อหนึ่ง transaction
+	private final BookingCsvImporter importer = new BookingCsvImporter(jdbc, dataSource,
+			mock(PlatformTransactionManager.class), mock(BookingRollup.class), mock(SlotAvailabilityIndex.class), 1, 100);
+
+	@Test
+	void failedCopyBatchIsReportedPerRowAndImportContinues() throws Exception {
+		when(jdbc.getExceptionTranslator()).thenReturn(new SQLStateSQLExceptionTranslator());
+		when(jdbc.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(List.of("somchai"));
+		when(dataSource.getConnection()).thenReturn(con);
+		when(con.unwrap(PGConnection.class))
+				.thenThrow(new SQLException("connection reset", "08006"))
+				.thenReturn(pg);
+		when(pg.getCopyAPI()).thenReturn(copy);
+		doAnswer(inv -> {
+			ResultSet rs = mock(ResultSet.class);
+			when(rs.getObject(1, LocalDate.class)).thenReturn(LocalDate.of(2025, 9, 11));
+			when(rs.getObject(2, LocalTime.class)).thenReturn(LocalTime.of(11, 0));
+			when(rs.getString(3)).thenReturn("ช่างเอ");
+			when(rs.getString(4)).thenReturn("ตัดผม");
+			when(rs.getString(5)).thenReturn("รอดำเนินการ");
+			inv.<RowCallbackHandler>getArgument(1).processRow(rs);
+			return null;
+		}).when(jdbc).query(contains("insert into bookings"), any(RowCallbackHandler.class));
+
+		String csv = """
+				Username,Service,Date,Time,Barber
+				somchai,ตัดผม,2025-09-10,10:00,ช่างเอ
+				somchai,ตัดผม,2025-09-11,11:00,ช่างเอ
+				""";
+		ImportReportDTO report = importer.importCsv(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)));
+
+		assertThat(report.rows()).isEqualTo(2);
+		assertThat(report.inserted()).isEqualTo(1);
+		assertThat(report.failed()).isEqualTo(1);
+		assertThat(report.errors()).extracting(RowError::line).containsExactly(2L);
+		assertThat(report.errors().get(0).message()).contains("connection reset");
+	}
+}
@@ -0,0 +1,91 @@
+package com.projectgo.barber_booking.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.projectgo.barber_booking.model.Booking;
+import com.projectgo.barber_booking.model.BookingStatus;
+import com.projectgo.barber_booking.service.BookingRollup.Key;
+
+class BookingRollupTest {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 9, 10);
+
+	private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+	private final BookingRollup rollup = new BookingRollup(jdbc, true);
+
+	private static Booking booking(String barber, String status) {
+		Booking b = new Booking("somchai", "ตัดผม", DAY, LocalTime.of(10, 0));
+		b.setBarber(barber);
+		b.setStatus(status);
+		return b;
+	}
+
+	@SuppressWarnings("unchecked")
+	private List<Object[]> batch(String sqlFragment) {
+		ArgumentCaptor<List<Object[]>> rows = ArgumentCaptor.forClass(List.class);
+		verify(jdbc).batchUpdate(contains(sqlFragment), rows.capture());
+		return rows.getValue();
+	}
+
+	@Test
+	void movedAllNetsDeltasPerKeyIntoOneBatch() {
+		Booking a = booking("ช่างเอ", BookingStatus.CONFIRMED);
+		Booking b = booking("ช่างเอ", BookingStatus.CONFIRMED);
+		Booking c = booking("ช่างบี", BookingStatus.CONFIRMED);
+		List<Key> befores = List.of(
+				new Key(DAY, "ช่างเอ", "ตัดผม", BookingStatus.PENDING),
+				new Key(DAY, "ช่างเอ", "ตัดผม", BookingStatus.PENDING),
+				new Key(DAY, "ช่างบี", "ตัดผม", BookingStatus.PENDING));
+
+		rollup.movedAll(befores, List.of(a, b, c));
+
+		assertThat(batch("excluded.cnt")).containsExactly(
+				new Object[]{DAY, "ช่างเอ", "ตัดผม", BookingStatus.PENDING, -2},
+				new Object[]{DAY, "ช่างเอ", "ตัดผม", BookingStatus.CONFIRMED, 2},
+				new Object[]{DAY, "ช่างบี", "ตัดผม", BookingStatus.PENDING, -1},
+				new Object[]{DAY, "ช่างบี", "ตัดผม", BookingStatus.CONFIRMED, 1});
+		// แถวที่ถูกหักอาจเหลือ 0 → ลบทิ้ง
+		assertThat(batch("cnt <= 0")).containsExactly(
+				new Object[]{DAY, "ช่างเอ", "ตัดผม", BookingStatus.PENDING},
+				new Object[]{DAY, "ช่างบี", "ตัดผม", BookingStatus.PENDING});
+	}
+
+	@Test
+	void movesThatCancelOutWriteNothing() {
+		Key pending = new Key(DAY, "ช่างเอ", "ตัดผม", BookingStatus.PENDING);
+		Key confirmed = new Key(DAY, "ช่างเอ", "ตัดผม", BookingStatus.CONFIRMED);
+
+		// แถวหนึ่ง PENDING→CONFIRMED อีกแถว CONFIRMED→PENDING และอีกแถวสถานะเท่าเดิม
+		rollup.movedAll(List.of(pending, confirmed, pending), List.of(
+				booking("ช่างเอ", BookingStatus.CONFIRMED),
+				booking("ช่างเอ", BookingStatus.PENDING),
+				booking("ช่างเอ", BookingStatus.PENDING)));
+
+		verify(jdbc, never()).batchUpdate(anyString(), anyList());
+	}
+
+	@Test
+	void bookingWithoutBarberMovesUnderTheEmptyBarberKey() {
+		Booking legacy = booking(null, BookingStatus.DONE);
+
+		rollup.movedAll(List.of(new Key(DAY, null, "ตัดผม", BookingStatus.CONFIRMED)), List.of(legacy));
+
+		assertThat(batch("excluded.cnt")).containsExactly(
+				new Object[]{DAY, "", "ตัดผม", BookingStatus.CONFIRMED, -1},
+				new Object[]{DAY, "", "ตัดผม", BookingStatus.DONE, 1});
+	}
+}
@@ -0,0 +1,203 @@
+package com.projectgo.barber_booking.service;
+
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.Test;
+
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+
+/**
+ * เทียบ thread-per-request แบบเดิม (ไม่มี bulkhead) กับการครอบ DataSource ด้วย DbBulkhead ภายใต้โหลดเกิน pool
+ * ไม่ใช่ unit test (ชื่อไม่ลงท้าย Test → surefire ไม่รันเอง) ต้องสั่งตรง ๆ:
+ *
+ *   mvn -B test -Dtest=DbBulkheadLoadHarness -Dsurefire.failIfNoSpecifiedTests=false
+ *
+ * ค่าที่ปรับได้ (-D...): harness.threads=200 (จำนวน request thread), harness.pool=10, harness.hold-ms=150
+ * (เวลาที่ถือ connection ต่อ request), harness.seconds=10, harness.max-wait-ms=2000 (db.bulkhead.max-wait-ms),
+ * harness.pool-timeout-ms=30000 (connection-timeout ของ Hikari)
+ * ไม่ใส่ harness.jdbc-url จะจำลอง pool ในหน่วยความจำ; ใส่ (พร้อม harness.user / harness.password) จะใช้ Hikari
+ * ต่อ Postgres จริงและถือ connection ด้วย pg_sleep
+ */
+class DbBulkheadLoadHarness {
+
+	private static final int THREADS = Integer.getInteger("harness.threads", 200);
+	private static final int POOL = Integer.getInteger("harness.pool", 10);
+	private static final long HOLD_MS = Long.getLong("harness.hold-ms", 150);
+	private static final long SECONDS = Long.getLong("harness.seconds", 10);
+	private static final long MAX_WAIT_MS = Long.getLong("harness.max-wait-ms", 2000);
+	private static final long POOL_TIMEOUT_MS = Long.getLong("harness.pool-timeout-ms", 30_000);
+	private static final String JDBC_URL = System.getProperty("harness.jdbc-url");
+
+	private record Result(String mode, long ok, long rejected, long failed, List<Long> latenciesNanos,
+						  DbBulkhead.Stats stats) {}
+
+	@Test
+	void compareWithAndWithoutBulkhead() throws Exception {
+		System.out.printf(Locale.ROOT, "threads=%d pool=%d hold=%dms duration=%ds max-wait=%dms pool-timeout=%dms db=%s%n",
+				THREADS, POOL, HOLD_MS, SECONDS, MAX_WAIT_MS, POOL_TIMEOUT_MS, JDBC_URL == null ? "simulated" : JDBC_URL);
+		print(run(false));
+		print(run(true));
+	}
+
+	private static Result run(boolean bulkheadOn) throws Exception {
+		try (Pool pool = JDBC_URL == null ? new SimulatedPool() : new HikariPool()) {
+			DbBulkhead bulkhead = new DbBulkhead(POOL, MAX_WAIT_MS);
+			DataSource ds = bulkheadOn ? bulkhead.wrap(pool.dataSource()) : pool.dataSource();
+
+			AtomicLong ok = new AtomicLong(), rejected = new AtomicLong(), failed = new AtomicLong();
+			List<Long> latencies = Collections.synchronizedList(new ArrayList<>());
+			long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(SECONDS);
+			CountDownLatch start = new CountDownLatch(1);
+			ExecutorService requests = Executors.newFixedThreadPool(THREADS);
+			for (int i = 0; i < THREADS; i++) {
+				requests.submit(() -> {
+					start.await();
+					while (System.nanoTime() < deadline) {
+						long t0 = System.nanoTime();
+						try (Connection con = ds.getConnection()) {
+							pool.work(con);
+							ok.incrementAndGet();
+							latencies.add(System.nanoTime() - t0);
+						} catch (SQLException ex) {
+							if (DbBulkhead.rejection(ex) != null) rejected.incrementAndGet();
+							else failed.incrementAndGet();
+						}
+					}
+					return null;
+				});
+			}
+			start.countDown();
+			requests.shutdown();
+			if (!requests.awaitTermination(SECONDS + POOL_TIMEOUT_MS / 1000 + 60, TimeUnit.SECONDS)) {
+				requests.shutdownNow();
+			}
+			return new Result(bulkheadOn ? "bulkhead" : "no bulkhead", ok.get(), rejected.get(), failed.get(),
+					latencies, bulkheadOn ? bulkhead.stats() : null);
+		}
+	}
+
+	private static void print(Result r) {
+		List<Long> l = new ArrayList<>(r.latenciesNanos());
+		Collections.sort(l);
+		System.out.printf(Locale.ROOT,
+				"%-12s ok=%d (%.1f/s) rejected-fast=%d pool-timeout/other=%d latency ms p50=%.0f p99=%.0f max=%.0f%n",
+				r.mode(), r.ok(), r.ok() / (double) SECONDS, r.rejected(), r.failed(),
+				percentile(l, 0.50), percentile(l, 0.99), percentile(l, 1.0));
+		System.out.println("             DbBulkhead.stats() = "
+				+ (r.stats() != null ? r.stats() : "- (ไม่ได้ครอบ DataSource)"));
+	}
+
+	private static double percentile(List<Long> sorted, double p) {
+		if (sorted.isEmpty()) return 0;
+		int i = (int) Math.min(sorted.size() - 1, Math.ceil(p * sorted.size()) - 1);
+		return sorted.get(Math.max(0, i)) / 1e6;
+	}
+
+	/* ---------------- connection sources ---------------- */
+
+	private interface Pool extends AutoCloseable {
+		DataSource dataSource();
+
+		/** งานของ request หนึ่งครั้งขณะถือ connection */
+		void work(Connection con) throws SQLException;
+
+		@Override
+		void close();
+	}
+
+	/** pool ขนาด POOL ที่รอ connection ได้นานสุด POOL_TIMEOUT_MS แบบ Hikari (ไม่ต่อฐานข้อมูลจริง) */
+	private static final class SimulatedPool implements Pool {
+		private final Semaphore connections = new Semaphore(POOL, true);
+		private final DataSource ds = (DataSource) Proxy.newProxyInstance(DataSource.class.getClassLoader(),
+				new Class<?>[]{DataSource.class}, (proxy, method, args) -> {
+					if (!method.getName().equals("getConnection")) throw new UnsupportedOperationException(method.getName());
+					if (!connections.tryAcquire(POOL_TIMEOUT_MS, TimeUnit.MILLISECONDS)) {
+						throw new SQLTransientConnectionException("Connection is not available, request timed out");
+					}
+					return connection();
+				});
+
+		private Connection connection() {
+			AtomicLong closed = new AtomicLong();
+			return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+					new Class<?>[]{Connection.class}, (proxy, method, args) -> switch (method.getName()) {
+						case "close" -> {
+							if (closed.getAndIncrement() == 0) connections.release();
+							yield null;
+						}
+						case "isClosed" -> closed.get() > 0;
+						case "equals" -> proxy == args[0];
+						case "hashCode" -> System.identityHashCode(proxy);
+						case "toString" -> "simulated connection";
+						default -> throw new UnsupportedOperationException(method.getName());
+					});
+		}
+
+		@Override
+		public DataSource dataSource() {
+			return ds;
+		}
+
+		@Override
+		public void work(Connection con) {
+			try {
+				Thread.sleep(HOLD_MS);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+
+		@Override
+		public void close() {}
+	}
+
+	/** Hikari ต่อ Postgres จริง — ถือ connection ด้วย pg_sleep */
+	private static final class HikariPool implements Pool {
+		private final HikariDataSource ds;
+
+		HikariPool() {
+			HikariConfig cfg = new HikariConfig();
+			cfg.setJdbcUrl(JDBC_URL);
+			cfg.setUsername(System.getProperty("harness.user"));
+			cfg.setPassword(System.getProperty("harness.password"));
+			cfg.setMaximumPoolSize(POOL);
+			cfg.setMinimumIdle(POOL);
+			cfg.setConnectionTimeout(POOL_TIMEOUT_MS);
+			ds = new HikariDataSource(cfg);
+		}
+
+		@Override
+		public DataSource dataSource() {
+			return ds;
+		}
+
+		@Override
+		public void work(Connection con) throws SQLException {
+			try (Statement st = con.createStatement()) {
+				st.execute("select pg_sleep(" + HOLD_MS / 1000.0 + ")");
+			}
+		}
+
+		@Override
+		public void close() {
+			ds.close();
+		}
+	}
+}
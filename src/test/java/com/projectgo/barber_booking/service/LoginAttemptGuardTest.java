@@ -0,0 +1,87 @@
+package com.projectgo.barber_booking.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.projectgo.barber_booking.exception.LoginThrottledException;
+
+class LoginAttemptGuardTest {
+
+	private final LoginAttemptGuard guard = new LoginAttemptGuard(3, 10, 900, 100, 5, 30);
+
+	@Test
+	void blocksUsernameFromTheGuessingAddressOnly() {
+		for (int i = 0; i < 3; i++) guard.failed("admin", "203.0.113.9");
+
+		assertThatThrownBy(() -> guard.check("admin", "203.0.113.9"))
+				.isInstanceOf(LoginThrottledException.class)
+				.satisfies(ex -> assertThat(((LoginThrottledException) ex).getRetryAfterSeconds()).isPositive());
+		// เจ้าของบัญชีจากที่อื่นยังล็อกอินได้
+		assertThatCode(() -> guard.check("admin", "198.51.100.7")).doesNotThrowAnyException();
+	}
+
+	@Test
+	void usernameMatchIgnoresCase() {
+		for (int i = 0; i < 3; i++) guard.failed("Somchai", "203.0.113.9");
+		assertThatThrownBy(() -> guard.check(" somchai ", "203.0.113.9")).isInstanceOf(LoginThrottledException.class);
+	}
+
+	@Test
+	void addressCapCoversAllUsernames() {
+		for (int i = 0; i < 10; i++) guard.failed("user" + i, "203.0.113.9");
+		assertThatThrownBy(() -> guard.check("someone-else", "203.0.113.9"))
+				.isInstanceOf(LoginThrottledException.class);
+	}
+
+	@Test
+	void successClearsThePairButNotTheAddress() {
+		for (int i = 0; i < 2; i++) guard.failed("admin", "203.0.113.9");
+		guard.succeeded("admin", "203.0.113.9");
+		guard.failed("admin", "203.0.113.9");
+		assertThatCode(() -> guard.check("admin", "203.0.113.9")).doesNotThrowAnyException();
+		assertThat(guard.stats().failures()).isEqualTo(3);
+	}
+
+	private static long retryAfter(LoginAttemptGuard g, String username, String ip) {
+		try {
+			g.check(username, ip);
+			return 0;
+		} catch (LoginThrottledException ex) {
+			return ex.getRetryAfterSeconds();
+		}
+	}
+
+	@Test
+	void accountIsSlowedDownAcrossAddressesButNotLocked() {
+		// กระจายการเดาไปคนละ IP: ไม่ชนเพดานต่อคู่หรือต่อ IP แต่บัญชีถูกหน่วง
+		for (int i = 0; i < 4; i++) guard.failed("admin", "203.0.113." + i);
+		assertThat(retryAfter(guard, "admin", "198.51.100.7")).isZero();
+
+		guard.failed("admin", "203.0.113.4");
+		assertThat(retryAfter(guard, "admin", "198.51.100.7")).isEqualTo(1);
+
+		guard.failed("admin", "203.0.113.5");
+		guard.failed("admin", "203.0.113.6");
+		assertThat(retryAfter(guard, "admin", "198.51.100.7")).isEqualTo(4);
+		// บัญชีอื่นไม่เกี่ยว
+		assertThat(retryAfter(guard, "somchai", "198.51.100.7")).isZero();
+	}
+
+	@Test
+	void accountDelayIsCapped() {
+		LoginAttemptGuard capped = new LoginAttemptGuard(3, 100, 900, 100, 1, 2);
+		for (int i = 0; i < 10; i++) capped.failed("admin", "203.0.113." + i);
+		assertThat(retryAfter(capped, "admin", "198.51.100.7")).isEqualTo(2);
+	}
+
+	@Test
+	void successClearsTheAccountDelay() {
+		for (int i = 0; i < 6; i++) guard.failed("admin", "203.0.113." + i);
+		guard.succeeded("admin", "198.51.100.7");
+		assertThat(retryAfter(guard, "admin", "198.51.100.7")).isZero();
+		assertThat(guard.stats().trackedAccounts()).isZero();
+	}
+}
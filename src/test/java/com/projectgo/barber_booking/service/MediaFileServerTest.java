@@ -0,0 +1,45 @@
+package com.projectgo.barber_booking.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import com.projectgo.barber_booking.service.MediaFileServer.ByteRange;
+
+class MediaFileServerTest {
+
+	@Test
+	void parsesClosedAndOpenRanges() {
+		assertThat(MediaFileServer.parseRange("bytes=0-99", 1000)).isEqualTo(ByteRange.of(0, 99));
+		assertThat(MediaFileServer.parseRange("bytes=900-", 1000)).isEqualTo(ByteRange.of(900, 999));
+		assertThat(MediaFileServer.parseRange(" bytes=10-20 ", 1000)).isEqualTo(ByteRange.of(10, 20));
+	}
+
+	@Test
+	void clampsEndToFileSize() {
+		assertThat(MediaFileServer.parseRange("bytes=500-5000", 1000)).isEqualTo(ByteRange.of(500, 999));
+	}
+
+	@Test
+	void suffixRangeServesLastBytes() {
+		assertThat(MediaFileServer.parseRange("bytes=-100", 1000)).isEqualTo(ByteRange.of(900, 999));
+		assertThat(MediaFileServer.parseRange("bytes=-5000", 1000)).isEqualTo(ByteRange.of(0, 999));
+	}
+
+	@Test
+	void rangesOutsideTheFileAreUnsatisfiable() {
+		assertThat(MediaFileServer.parseRange("bytes=1000-", 1000)).isEqualTo(ByteRange.UNSATISFIABLE);
+		assertThat(MediaFileServer.parseRange("bytes=5000-6000", 1000)).isEqualTo(ByteRange.UNSATISFIABLE);
+		assertThat(MediaFileServer.parseRange("bytes=-0", 1000)).isEqualTo(ByteRange.UNSATISFIABLE);
+		assertThat(MediaFileServer.parseRange("bytes=-10", 0)).isEqualTo(ByteRange.UNSATISFIABLE);
+	}
+
+	@Test
+	void unusableHeadersFallBackToFullBody() {
+		assertThat(MediaFileServer.parseRange("bytes=0-10,20-30", 1000)).isEqualTo(ByteRange.FULL);
+		assertThat(MediaFileServer.parseRange("items=0-10", 1000)).isEqualTo(ByteRange.FULL);
+		assertThat(MediaFileServer.parseRange("bytes=-", 1000)).isEqualTo(ByteRange.FULL);
+		assertThat(MediaFileServer.parseRange("bytes=20-10", 1000)).isEqualTo(ByteRange.FULL);
+		assertThat(MediaFileServer.parseRange("bytes=99999999999999999999-", 1000)).isEqualTo(ByteRange.FULL);
+	}
+}
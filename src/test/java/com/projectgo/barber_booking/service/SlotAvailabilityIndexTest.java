@@ -0,0 +1,157 @@
+package com.projectgo.barber_booking.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+import com.projectgo.barber_booking.model.Booking;
+import com.projectgo.barber_booking.repository.BookingRepository;
+import com.projectgo.barber_booking.service.SlotAvailabilityIndex.Slot;
+
+class SlotAvailabilityIndexTest {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 9, 10);
+	private static final LocalTime TEN = LocalTime.of(10, 0);
+	private static final LocalTime TEN_THIRTY = LocalTime.of(10, 30);
+
+	private final BookingRepository repo = mock(BookingRepository.class);
+	private final SlotAvailabilityIndex index = new SlotAvailabilityIndex(repo, "10:00", "12:00", 30);
+
+	private static Booking booking(String barber, LocalDate date, LocalTime time) {
+		Booking b = new Booking("somchai", "ตัดผม", date, time);
+		b.setBarber(barber);
+		return b;
+	}
+
+	@Test
+	void answersFromOneLoadPerDay() {
+		when(repo.findTimesByBarberAndDate("ช่างเอ", DAY)).thenReturn(List.of(TEN));
+
+		assertThat(index.isTaken("ช่างเอ", DAY, TEN)).isTrue();
+		assertThat(index.isTaken("ช่างเอ", DAY, TEN_THIRTY)).isFalse();
+		assertThat(index.freeSlots("ช่างเอ", DAY))
+				.containsExactly(TEN_THIRTY, LocalTime.of(11, 0), LocalTime.of(11, 30));
+		assertThat(index.bookedCount("ช่างเอ", DAY)).isEqualTo(1);
+		verify(repo, times(1)).findTimesByBarberAndDate("ช่างเอ", DAY);
+	}
+
+	@Test
+	void writeHooksKeepALoadedDayCurrent() {
+		when(repo.findTimesByBarberAndDate("ช่างเอ", DAY)).thenReturn(List.of());
+		assertThat(index.bookedCount("ช่างเอ", DAY)).isZero();
+
+		Booking b = booking("ช่างเอ", DAY, TEN);
+		index.onCreated(b);
+		assertThat(index.isTaken("ช่างเอ", DAY, TEN)).isTrue();
+
+		Slot before = Slot.of(b);
+		b.setTime(TEN_THIRTY);
+		index.onUpdated(before, b);
+		assertThat(index.isTaken("ช่างเอ", DAY, TEN)).isFalse();
+		assertThat(index.isTaken("ช่างเอ", DAY, TEN_THIRTY)).isTrue();
+
+		index.onDeleted(Slot.of(b));
+		assertThat(index.bookedCount("ช่างเอ", DAY)).isZero();
+	}
+
+	@Test
+	void secondsAreCheckedAgainstTheDatabase() {
+		LocalTime odd = LocalTime.of(10, 0, 15);
+		when(repo.existsByBarberAndDateAndTime("ช่างเอ", DAY, odd)).thenReturn(true);
+
+		assertThat(index.isTaken("ช่างเอ", DAY, odd)).isTrue();
+		verify(repo, times(0)).findTimesByBarberAndDate(anyString(), any());
+	}
+
+	@Test
+	void loadThatOverlapsAWriteIsNotKept() {
+		// การจองถูก commit ระหว่างที่ query ยังอ่านข้อมูลเก่าอยู่
+		when(repo.findTimesByBarberAndDate("ช่างเอ", DAY)).thenAnswer(inv -> {
+			index.onCreated(booking("ช่างเอ", DAY, TEN));
+			return List.of();
+		}).thenReturn(List.of(TEN));
+
+		assertThat(index.isTaken("ช่างเอ", DAY, TEN)).isFalse();
+		assertThat(index.isTaken("ช่างเอ", DAY, TEN)).isTrue();
+		verify(repo, times(2)).findTimesByBarberAndDate("ช่างเอ", DAY);
+	}
+
+	@Test
+	void evictionDropsOnlyPastDays() {
+		when(repo.findTimesByBarberAndDate(anyString(), any())).thenReturn(List.of(TEN));
+		index.isTaken("ช่างเอ", DAY, TEN);
+		index.isTaken("ช่างเอ", DAY.plusDays(1), TEN);
+
+		index.evictBefore(DAY.plusDays(1));
+		index.isTaken("ช่างเอ", DAY, TEN);
+		index.isTaken("ช่างเอ", DAY.plusDays(1), TEN);
+
+		verify(repo, times(2)).findTimesByBarberAndDate("ช่างเอ", DAY);
+		verify(repo, times(1)).findTimesByBarberAndDate("ช่างเอ", DAY.plusDays(1));
+	}
+
+	@Test
+	void concurrentLookupsSurviveTheDateRollingOver() throws Exception {
+		when(repo.findTimesByBarberAndDate(anyString(), any())).thenReturn(List.of(TEN));
+		List<String> barbers = List.of("ช่างเอ", "ช่างบี", "ช่างซี");
+		ConcurrentLinkedQueue<Throwable> errors = new ConcurrentLinkedQueue<>();
+		ConcurrentLinkedQueue<String> wrong = new ConcurrentLinkedQueue<>();
+		int threads = 8;
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService pool = Executors.newFixedThreadPool(threads + 1);
+		try {
+			for (int t = 0; t < threads; t++) {
+				int seed = t;
+				pool.submit(() -> {
+					try {
+						start.await();
+						for (int i = 0; i < 500; i++) {
+							String barber = barbers.get((seed + i) % barbers.size());
+							LocalDate d = DAY.plusDays((seed + i) % 3 - 1);
+							if (!index.isTaken(barber, d, TEN)) wrong.add(barber + " " + d + " 10:00");
+							if (index.isTaken(barber, d, TEN_THIRTY)) wrong.add(barber + " " + d + " 10:30");
+						}
+					} catch (Throwable e) {
+						errors.add(e);
+					}
+					return null;
+				});
+			}
+			pool.submit(() -> {
+				try {
+					start.await();
+					// วันเปลี่ยนระหว่างที่ request อื่นกำลังโหลด bitmap
+					for (int i = 0; i < 200; i++) {
+						index.evictBefore(DAY.plusDays(i % 2));
+					}
+				} catch (Throwable e) {
+					errors.add(e);
+				}
+				return null;
+			});
+			start.countDown();
+			pool.shutdown();
+			assertThat(pool.awaitTermination(30, TimeUnit.SECONDS)).isTrue();
+		} finally {
+			pool.shutdownNow();
+		}
+
+		assertThat(errors).isEmpty();
+		assertThat(wrong).isEmpty();
+	}
+}
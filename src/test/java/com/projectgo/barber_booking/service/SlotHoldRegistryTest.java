@@ -0,0 +1,69 @@
+package com.projectgo.barber_booking.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.LocalDate;
+import java.time.LocalTime;
+
+import org.junit.jupiter.api.Test;
+
+import com.projectgo.barber_booking.service.SlotAvailabilityIndex.Slot;
+
+class SlotHoldRegistryTest {
+
+	private static final LocalDate DAY = LocalDate.of(2025, 9, 10);
+	private static final Slot TEN = new Slot("ช่างเอ", DAY, LocalTime.of(10, 0));
+
+	private final SlotHoldRegistry holds = new SlotHoldRegistry(300);
+
+	@Test
+	void secondUserCannotTakeAHeldSlot() {
+		assertThat(holds.acquire(TEN, "somchai")).isPresent();
+
+		assertThat(holds.acquire(TEN, "somsri")).isEmpty();
+		assertThat(holds.isHeldByOther(TEN, "somsri")).isTrue();
+		assertThat(holds.isHeldByOther(TEN, "somchai")).isFalse();
+	}
+
+	@Test
+	void sameUserRenewsTheHold() throws InterruptedException {
+		long first = holds.acquire(TEN, "somchai").orElseThrow().expiresAt();
+		Thread.sleep(5);
+		long second = holds.acquire(TEN, "somchai").orElseThrow().expiresAt();
+		assertThat(second).isGreaterThan(first);
+	}
+
+	@Test
+	void onlyTheHolderCanRelease() {
+		holds.acquire(TEN, "somchai");
+
+		holds.release(TEN, "somsri");
+		assertThat(holds.isHeldByOther(TEN, "somsri")).isTrue();
+
+		holds.release(TEN, "somchai");
+		assertThat(holds.isHeldByOther(TEN, "somsri")).isFalse();
+		assertThat(holds.acquire(TEN, "somsri")).isPresent();
+	}
+
+	@Test
+	void heldTimesListsOtherUsersOnThatBarberAndDay() {
+		holds.acquire(TEN, "somchai");
+		holds.acquire(new Slot("ช่างเอ", DAY, LocalTime.of(10, 30)), "somsri");
+		holds.acquire(new Slot("ช่างบี", DAY, LocalTime.of(11, 0)), "somchai");
+		holds.acquire(new Slot("ช่างเอ", DAY.plusDays(1), LocalTime.of(11, 0)), "somchai");
+
+		assertThat(holds.heldTimes("ช่างเอ", DAY, "somsri")).containsExactly(LocalTime.of(10, 0));
+	}
+
+	@Test
+	void expiredHoldsFreeTheSlotAndAreReaped() throws InterruptedException {
+		SlotHoldRegistry shortLived = new SlotHoldRegistry(1);
+		shortLived.acquire(TEN, "somchai");
+		Thread.sleep(1_100);
+
+		assertThat(shortLived.isHeldByOther(TEN, "somsri")).isFalse();
+		assertThat(shortLived.heldTimes("ช่างเอ", DAY, "somsri")).isEmpty();
+		shortLived.reapExpired();
+		assertThat(shortLived.acquire(TEN, "somsri")).isPresent();
+	}
+}